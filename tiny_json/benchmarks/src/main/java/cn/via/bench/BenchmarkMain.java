@@ -0,0 +1,23 @@
+package cn.via.bench;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * 运行基准测试，参数与JMH命令行相同，总是带上GC profiler，结果中的gc.alloc.rate.norm为每次操作分配的字节数。
+ * 例如：java -jar target/benchmarks.jar ParseBenchmark -p corpus=small,large
+ * @author venia
+ */
+public class BenchmarkMain {
+	
+	public static void main(String[] args) throws Exception {
+		Options options = new OptionsBuilder()
+				.parent(new CommandLineOptions(args))
+				.addProfiler(GCProfiler.class)
+				.build();
+		new Runner(options).run();
+	}
+}
@@ -0,0 +1,131 @@
+package cn.via.bench;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+
+/**
+ * 基准测试使用的生成语料，同一个名字每次生成的内容都相同（固定随机种子）。
+ * @author venia
+ */
+public final class Corpus {
+	
+	// 可以用作@Param的语料名
+	public static final String SMALL = "small";			// 几百字节的API消息
+	public static final String DEEP = "deep";			// 对象与数组交替嵌套500层
+	public static final String WIDE = "wide";			// 两万个小对象组成的数组
+	public static final String NUMBERS = "numbers";		// 以整数、小数、指数为主
+	public static final String UNICODE = "unicode";		// 以中文、emoji与转义为主的长字符串
+	public static final String LARGE = "large";			// 约8MB的订单列表
+	
+	private Corpus() {
+	}
+	
+	public static String get(String name) {
+		switch(name) {
+		case SMALL:		return small(new Random(1));
+		case DEEP:		return deep(500);
+		case WIDE:		return wide(20000);
+		case NUMBERS:	return numbers(new Random(3), 50000);
+		case UNICODE:	return unicode(new Random(4), 2000);
+		case LARGE:		return large(new Random(5), 8 << 20);
+		default:		throw new IllegalArgumentException("Unknown corpus: " + name);
+		}
+	}
+	
+	public static byte[] bytes(String name) {
+		return get(name).getBytes(StandardCharsets.UTF_8);
+	}
+	
+	private static String small(Random r) {
+		StringBuilder sb = new StringBuilder();
+		order(sb, r, 1);
+		return sb.toString();
+	}
+	
+	private static String deep(int depth) {
+		StringBuilder sb = new StringBuilder();
+		for(int i = 0; i < depth; i++) sb.append(i % 2 == 0 ? "{\"k\":" : "[1,");
+		sb.append("0");
+		for(int i = depth - 1; i >= 0; i--) sb.append(i % 2 == 0 ? '}' : ']');
+		return sb.toString();
+	}
+	
+	private static String wide(int n) {
+		StringBuilder sb = new StringBuilder("[");
+		for(int i = 0; i < n; i++) {
+			if(i > 0) sb.append(',');
+			sb.append("{\"id\":").append(i).append(",\"v\":[").append(i).append(",true,null],\"s\":\"x\"}");
+		}
+		return sb.append(']').toString();
+	}
+	
+	private static String numbers(Random r, int n) {
+		StringBuilder sb = new StringBuilder("{\"ints\":[");
+		for(int i = 0; i < n; i++) {
+			if(i > 0) sb.append(',');
+			sb.append(r.nextInt(2000000) - 1000000);
+		}
+		sb.append("],\"longs\":[");
+		for(int i = 0; i < n; i++) {
+			if(i > 0) sb.append(',');
+			sb.append(r.nextLong());
+		}
+		sb.append("],\"doubles\":[");
+		for(int i = 0; i < n; i++) {
+			if(i > 0) sb.append(',');
+			sb.append(Math.round(r.nextDouble() * 1e6) / 100.0);
+		}
+		sb.append("],\"exponents\":[");
+		for(int i = 0; i < n; i++) {
+			if(i > 0) sb.append(',');
+			sb.append(r.nextGaussian() * Math.pow(10, r.nextInt(60) - 30));
+		}
+		return sb.append("]}").toString();
+	}
+	
+	private static final String[] WORDS = {
+		"你好", "世界", "解析器", "性能", "🎉", "😀", "Ünïcödé", "naïve", "日本語", "한국어", "\\n", "\\\"", "\\u4e2d", "\\ud83d\\ude00", "plain"
+	};
+	
+	private static String unicode(Random r, int n) {
+		StringBuilder sb = new StringBuilder("[");
+		for(int i = 0; i < n; i++) {
+			if(i > 0) sb.append(',');
+			sb.append("{\"text\":\"");
+			int words = 10 + r.nextInt(50);
+			for(int k = 0; k < words; k++) {
+				sb.append(WORDS[r.nextInt(WORDS.length)]).append(' ');
+			}
+			sb.append("\",\"标签\":\"").append(WORDS[r.nextInt(5)]).append("\"}");
+		}
+		return sb.append(']').toString();
+	}
+	
+	private static String large(Random r, int size) {
+		StringBuilder sb = new StringBuilder(size + 1024);
+		sb.append('[');
+		for(int i = 1; sb.length() < size; i++) {
+			if(i > 1) sb.append(',');
+			order(sb, r, i);
+		}
+		return sb.append(']').toString();
+	}
+	
+	// 一个典型的API对象：字符串、整数、小数、布尔、null、嵌套对象与数组
+	private static void order(StringBuilder sb, Random r, int id) {
+		sb.append("{\"id\":").append(id)
+			.append(",\"customer\":{\"name\":\"customer-").append(r.nextInt(100000))
+			.append("\",\"email\":\"user").append(r.nextInt(100000)).append("@example.com\",\"vip\":").append(r.nextBoolean())
+			.append("},\"status\":\"").append(r.nextBoolean() ? "PAID" : "SHIPPED")
+			.append("\",\"coupon\":null,\"items\":[");
+		int items = 1 + r.nextInt(5);
+		for(int k = 0; k < items; k++) {
+			if(k > 0) sb.append(',');
+			sb.append("{\"sku\":\"SKU-").append(r.nextInt(1000000))
+				.append("\",\"qty\":").append(1 + r.nextInt(10))
+				.append(",\"price\":").append(r.nextInt(100000) / 100.0).append('}');
+		}
+		sb.append("],\"created\":\"2024-0").append(1 + r.nextInt(9)).append("-1").append(r.nextInt(10))
+			.append("T12:00:00Z\",\"total\":").append(r.nextInt(10000000) / 100.0).append('}');
+	}
+}
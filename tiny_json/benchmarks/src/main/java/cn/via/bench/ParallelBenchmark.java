@@ -0,0 +1,65 @@
+package cn.via.bench;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import cn.via.ParseOptions;
+import cn.via.TinyJsonParser;
+
+/**
+ * 大数组的并行解析，parallelism为ForkJoinPool的并行度，与单线程的parse对比。
+ * @author venia
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ParallelBenchmark {
+	
+	@Param({Corpus.WIDE, Corpus.LARGE})
+	public String corpus;
+	
+	@Param({"1", "2", "4", "8"})
+	public int parallelism;
+	
+	private byte[] bytes;
+	private ParseOptions options;
+	private ForkJoinPool pool;
+	
+	@Setup
+	public void setup() {
+		bytes = Corpus.bytes(corpus);
+		options = new ParseOptions();
+		pool = new ForkJoinPool(parallelism);
+	}
+	
+	@TearDown
+	public void tearDown() {
+		pool.shutdown();
+	}
+	
+	@Benchmark
+	public Object sequential() {
+		return TinyJsonParser.parse(bytes);
+	}
+	
+	@Benchmark
+	public Object parallel() {
+		return TinyJsonParser.parseParallel(bytes, options, pool);
+	}
+}
@@ -0,0 +1,75 @@
+package cn.via.bench;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import cn.via.JsonParser;
+import cn.via.JsonTape;
+import cn.via.ParseOptions;
+import cn.via.ParseOptions.TREE_MODEL;
+import cn.via.TinyJsonParser;
+
+/**
+ * 解析为完整的树：默认的HashMap/ArrayList、紧凑树、复用的JsonParser，以及只生成token带。
+ * @author venia
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ParseBenchmark {
+	
+	@Param({Corpus.SMALL, Corpus.DEEP, Corpus.WIDE, Corpus.NUMBERS, Corpus.UNICODE, Corpus.LARGE})
+	public String corpus;
+	
+	private String text;
+	private byte[] bytes;
+	private ParseOptions compact;
+	private JsonParser parser;
+	
+	@Setup
+	public void setup() {
+		text = Corpus.get(corpus);
+		bytes = Corpus.bytes(corpus);
+		compact = new ParseOptions().setTreeModel(TREE_MODEL.COMPACT);
+		parser = new JsonParser();
+	}
+	
+	@Benchmark
+	public Object string() {
+		return TinyJsonParser.parse(text);
+	}
+	
+	@Benchmark
+	public Object bytes() {
+		return TinyJsonParser.parse(bytes);
+	}
+	
+	@Benchmark
+	public Object compact() {
+		return TinyJsonParser.parse(text, compact);
+	}
+	
+	@Benchmark
+	public Object reused() {
+		return parser.parse(text);
+	}
+	
+	@Benchmark
+	public JsonTape tape() {
+		return TinyJsonParser.parseTape(bytes);
+	}
+}
@@ -0,0 +1,54 @@
+package cn.via.bench;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import cn.via.JsonWriter;
+import cn.via.TinyJsonParser;
+
+/**
+ * 把解析好的树输出为字符串：getPrintString与JsonWriter。
+ * @author venia
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PrintBenchmark {
+	
+	@Param({Corpus.SMALL, Corpus.DEEP, Corpus.WIDE, Corpus.NUMBERS, Corpus.UNICODE, Corpus.LARGE})
+	public String corpus;
+	
+	private Object tree;
+	
+	@Setup
+	public void setup() {
+		tree = TinyJsonParser.parse(Corpus.get(corpus));
+	}
+	
+	@Benchmark
+	public String printString() {
+		return TinyJsonParser.getPrintString(tree);
+	}
+	
+	@Benchmark
+	public int writer() throws IOException {
+		StringBuilder sb = new StringBuilder();
+		new JsonWriter(sb).write(tree);
+		return sb.length();
+	}
+}
@@ -0,0 +1,68 @@
+package cn.via.bench;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import cn.via.ByteTokenizer;
+import cn.via.Tokenizer;
+import cn.via.Tokenizer.TAG;
+
+/**
+ * 只做词法分析：peek/swallow走完所有token，不构建任何对象。
+ * @author venia
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class TokenizerBenchmark {
+	
+	@Param({Corpus.SMALL, Corpus.DEEP, Corpus.WIDE, Corpus.NUMBERS, Corpus.UNICODE, Corpus.LARGE})
+	public String corpus;
+	
+	private String text;
+	private byte[] bytes;
+	
+	@Setup
+	public void setup() {
+		text = Corpus.get(corpus);
+		bytes = Corpus.bytes(corpus);
+	}
+	
+	@Benchmark
+	public int chars() {
+		Tokenizer tkz = new Tokenizer(text);
+		int n = 0;
+		TAG tag = null;
+		while((tag = tkz.peek()) != TAG.EOF) {
+			tkz.swallow(tag);
+			n++;
+		}
+		return n;
+	}
+	
+	@Benchmark
+	public int bytes() {
+		ByteTokenizer tkz = new ByteTokenizer(bytes);
+		int n = 0;
+		TAG tag = null;
+		while((tag = tkz.peek()) != TAG.EOF) {
+			tkz.swallow(tag);
+			n++;
+		}
+		return n;
+	}
+}
@@ -0,0 +1,65 @@
+package cn.via.bench;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import cn.via.JsonValidator;
+import cn.via.TinyJsonParser;
+
+/**
+ * 只检查是否合法与完整解析的对比，gc.alloc.rate.norm即每次检查分配的字节数。
+ * @author venia
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ValidateBenchmark {
+	
+	@Param({Corpus.SMALL, Corpus.DEEP, Corpus.WIDE, Corpus.NUMBERS, Corpus.UNICODE, Corpus.LARGE})
+	public String corpus;
+	
+	private String text;
+	private byte[] bytes;
+	private JsonValidator validator;
+	
+	@Setup
+	public void setup() {
+		text = Corpus.get(corpus);
+		bytes = Corpus.bytes(corpus);
+		validator = new JsonValidator();
+	}
+	
+	@Benchmark
+	public boolean validateString() {
+		return validator.validate(text);
+	}
+	
+	@Benchmark
+	public boolean validateBytes() {
+		return validator.validate(bytes);
+	}
+	
+	@Benchmark
+	public Object parseString() {
+		return TinyJsonParser.parse(text);
+	}
+	
+	@Benchmark
+	public Object parseBytes() {
+		return TinyJsonParser.parse(bytes);
+	}
+}
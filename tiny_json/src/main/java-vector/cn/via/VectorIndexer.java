@@ -0,0 +1,66 @@
+package cn.via;
+
+import jdk.incubator.vector.ByteVector;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * 使用jdk.incubator.vector生成结构索引，每次比较一个向量（AVX2为32字节，AVX-512为64字节，NEON为16字节）。
+ * 引号、结构字符与单引号各自比较得到位掩码，引号掩码的前缀异或即为字符串内部的掩码，与结构字符掩码相与去掉字符串中的部分。
+ * 含有反斜杠的块逐字节处理，这样转义的判断与StructuralIndex.Builder完全一致。
+ * 只在vector profile中编译（需要JDK 17以上），由StructuralIndex通过反射加载。
+ * @author venia
+ */
+final class VectorIndexer implements StructuralIndex.Indexer {
+
+	// 掩码保存在long中，向量最多64个字节
+	private static final VectorSpecies<Byte> SPECIES = ByteVector.SPECIES_PREFERRED.length() <= 64
+			? ByteVector.SPECIES_PREFERRED : ByteVector.SPECIES_512;
+	private static final int LANES = SPECIES.length();
+	private static final long LANE_MASK = LANES == 64 ? -1L : (1L << LANES) - 1;
+
+	public int[] index(byte[] b, int from, int to) {
+		StructuralIndex.Builder builder = new StructuralIndex.Builder(to - from);
+
+		int i = from;
+		for (; i + LANES <= to; i += LANES) {
+			ByteVector v = ByteVector.fromArray(SPECIES, b, i);
+			long backslash = v.eq((byte) '\\').toLong();
+			if (backslash != 0 || builder.escaped) {
+				if (!builder.scan(b, i, i + LANES)) return null;
+				continue;
+			}
+
+			long quote = v.eq((byte) '"').toLong();
+			ByteVector folded = v.or((byte) 0x20); // [ ] 与 { } 只差0x20
+			long structural = folded.eq((byte) '{').or(folded.eq((byte) '}'))
+					.or(v.eq((byte) ':')).or(v.eq((byte) ',')).toLong();
+			long single = v.eq((byte) '\'').toLong();
+
+			long inString = (prefixXor(quote) ^ (builder.inString ? -1L : 0)) & LANE_MASK;
+			if ((single & ~inString) != 0) {
+				return null;
+			}
+			builder.inString = (inString >>> (LANES - 1) & 1) != 0;
+
+			long bits = (structural & ~inString) | quote;
+			while (bits != 0) {
+				builder.add(i + Long.numberOfTrailingZeros(bits));
+				bits &= bits - 1;
+			}
+		}
+
+		// 不足一个向量的结尾
+		return builder.scan(b, i, to) ? builder.finish() : null;
+	}
+
+	// 第i位为x的第0到第i位的异或
+	private static long prefixXor(long x) {
+		x ^= x << 1;
+		x ^= x << 2;
+		x ^= x << 4;
+		x ^= x << 8;
+		x ^= x << 16;
+		x ^= x << 32;
+		return x;
+	}
+}
@@ -0,0 +1,614 @@
+package cn.via;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.AccessibleObject;
+import java.lang.reflect.Array;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.GenericArrayType;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.lang.reflect.WildcardType;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+
+import cn.via.JsonReader.EVENT;
+
+/**
+ * 把JsonReader的事件直接绑定到Java对象上，不生成中间的Map/List。
+ * 每个类第一次使用时生成一份绑定计划：构造方法与各个属性的MethodHandle，缓存在以Class为键的ConcurrentHashMap中，
+ * 之后的绑定只调用这些MethodHandle，不再使用反射。支持的类型：
+ *   基本类型及其包装类、String、CharSequence、BigInteger、BigDecimal、Number、枚举（按名字）；
+ *   数组、Collection（List、Set、Queue或者带无参构造方法的实现类）、键为String的Map；
+ *   带无参构造方法的类，通过setXxx方法或者非static、非transient、非final的字段赋值，未知的成员直接跳过；
+ *   record，通过规范构造方法创建，缺少的成员为null、0或false（需要运行在Java 16以上）；
+ *   Object以及无法确定的泛型参数，与TinyJsonParser.parse一样生成HashMap/ArrayList。
+ * @author venia
+ */
+final class Binder {
+	
+	private static final ConcurrentHashMap<Class<?>, Binding> CACHE = new ConcurrentHashMap<>();
+	private static final MethodHandles.Lookup LOOKUP = MethodHandles.lookup();
+	
+	private static final MethodType FACTORY = MethodType.methodType(Object.class);
+	private static final MethodType SETTER = MethodType.methodType(void.class, Object.class, Object.class);
+	
+	private Binder() {
+	}
+	
+	// 读取一个完整的文档，空文档返回null
+	@SuppressWarnings("unchecked")
+	static <T> T bind(JsonReader reader, Class<T> type) {
+		EVENT e = reader.next();
+		if (e == EVENT.END_DOCUMENT) {
+			return null;
+		}
+		
+		Object value = of(type).read(reader, e);
+		reader.next(); // 根结点之后只能有空白字符，否则状态机抛出异常，合法时返回END_DOCUMENT
+		return (T) value;
+	}
+	
+	// 类型对应的绑定方式，Class的结果会被缓存，泛型类型由持有它的绑定计划保存
+	static Binding of(Type type) {
+		if (type instanceof Class) {
+			Class<?> c = (Class<?>) type;
+			Binding b = CACHE.get(c);
+			if (b == null) {
+				b = create(c);
+				Binding old = CACHE.putIfAbsent(c, b);
+				if (old != null) b = old;
+			}
+			return b;
+		}
+		
+		if (type instanceof ParameterizedType) {
+			Class<?> raw = (Class<?>) ((ParameterizedType) type).getRawType();
+			Type[] args = ((ParameterizedType) type).getActualTypeArguments();
+			if (Collection.class.isAssignableFrom(raw)) {
+				return new CollectionBinding(raw, args[0]);
+			}
+			if (Map.class.isAssignableFrom(raw)) {
+				return new MapBinding(raw, args[1]);
+			}
+			return of(raw);
+		}
+		
+		if (type instanceof GenericArrayType) {
+			Type component = ((GenericArrayType) type).getGenericComponentType();
+			return new ArrayBinding(rawClass(component), component);
+		}
+		
+		if (type instanceof WildcardType) {
+			return of(((WildcardType) type).getUpperBounds()[0]);
+		}
+		return TREE; // 类型变量
+	}
+	
+	private static Binding create(Class<?> c) {
+		if (c == Object.class) {
+			return TREE;
+		}
+		if (c.isPrimitive() || c == String.class || c == CharSequence.class || Number.class.isAssignableFrom(c)
+				|| c == Boolean.class || c == Character.class) {
+			return new ScalarBinding(c);
+		}
+		if (c.isEnum()) {
+			return new EnumBinding(c);
+		}
+		if (c.isArray()) {
+			return new ArrayBinding(c.getComponentType(), c.getComponentType());
+		}
+		if (Collection.class.isAssignableFrom(c)) {
+			return new CollectionBinding(c, Object.class);
+		}
+		if (Map.class.isAssignableFrom(c)) {
+			return new MapBinding(c, Object.class);
+		}
+		if (c.getSuperclass() != null && "java.lang.Record".equals(c.getSuperclass().getName())) {
+			return new RecordBinding(c);
+		}
+		return new BeanBinding(c);
+	}
+	
+	private static Class<?> rawClass(Type type) {
+		if (type instanceof Class) return (Class<?>) type;
+		if (type instanceof ParameterizedType) return (Class<?>) ((ParameterizedType) type).getRawType();
+		if (type instanceof GenericArrayType) return Array.newInstance(rawClass(((GenericArrayType) type).getGenericComponentType()), 0).getClass();
+		return Object.class;
+	}
+	
+	// 一种类型的读取方式
+	abstract static class Binding {
+		
+		// e为值的第一个事件，返回时当前事件为值的最后一个事件
+		abstract Object read(JsonReader reader, EVENT e);
+	}
+	
+	// 与TinyJsonParser.parse相同，对象与数组生成HashMap/ArrayList
+	private static final Binding TREE = new Binding() {
+		Object read(JsonReader reader, EVENT e) {
+			switch (e) {
+			case START_OBJECT:
+			case START_ARRAY:
+				TinyJsonParser.Context ctx = new TinyJsonParser.Context(reader);
+				int depth = reader.getDepth() - 1;
+				TinyJsonParser.dispatch(e, reader, ctx);
+				while (reader.getDepth() > depth) {
+					TinyJsonParser.dispatch(reader.next(), reader, ctx);
+				}
+				return ctx.getRoot();
+			
+			case VALUE_STRING:	return reader.getCharSequence();
+			case VALUE_NUMBER:	return reader.getNumber();
+			case VALUE_TRUE:	return Tokenizer.TRUE;
+			case VALUE_FALSE:	return Tokenizer.FALSE;
+			default:			return null;
+			}
+		}
+	};
+	
+	private static final class ScalarBinding extends Binding {
+		
+		private final Class<?> type;
+		private final Object defaultValue;	// 基本类型遇到null时的值
+		
+		ScalarBinding(Class<?> type) {
+			this.type = type;
+			this.defaultValue = defaultValue(type);
+		}
+		
+		Object read(JsonReader reader, EVENT e) {
+			if (e == EVENT.VALUE_NULL) {
+				return defaultValue;
+			}
+			
+			if (type == String.class) {
+				if (e == EVENT.VALUE_STRING || e == EVENT.VALUE_NUMBER) return reader.getString();
+				if (e == EVENT.VALUE_TRUE || e == EVENT.VALUE_FALSE) return String.valueOf(e == EVENT.VALUE_TRUE);
+			}
+			else if (type == CharSequence.class) {
+				if (e == EVENT.VALUE_STRING) return reader.getCharSequence();
+			}
+			else if (type == boolean.class || type == Boolean.class) {
+				if (e == EVENT.VALUE_TRUE) return Boolean.TRUE;
+				if (e == EVENT.VALUE_FALSE) return Boolean.FALSE;
+			}
+			else if (type == char.class || type == Character.class) {
+				if (e == EVENT.VALUE_STRING && reader.getString().length() == 1) return reader.getString().charAt(0);
+			}
+			else if (e == EVENT.VALUE_NUMBER) {
+				Object n = number(reader);
+				if (n != null) return n;
+			}
+			throw mismatch(reader, e, type);
+		}
+		
+		// 转为目标类型，整数类型不接受小数以及超出范围的值
+		private Object number(JsonReader reader) {
+			if (type == double.class || type == Double.class) return reader.getDouble();
+			if (type == float.class || type == Float.class) return (float) reader.getDouble();
+			if (type == BigDecimal.class) return new BigDecimal(reader.getString());
+			if (type == Number.class) return reader.getNumber();
+			if (type == BigInteger.class) return reader.isDecimal() ? null : new BigInteger(reader.getString());
+			
+			if (!reader.isIntegral()) return null;
+			long v = reader.getLong();
+			if (type == long.class || type == Long.class) return v;
+			if (type == int.class || type == Integer.class) return (int) v == v ? Integer.valueOf((int) v) : null;
+			if (type == short.class || type == Short.class) return (short) v == v ? Short.valueOf((short) v) : null;
+			if (type == byte.class || type == Byte.class) return (byte) v == v ? Byte.valueOf((byte) v) : null;
+			return null;
+		}
+	}
+	
+	private static final class EnumBinding extends Binding {
+		
+		private final Class<?> type;
+		private final Map<String, Object> constants = new HashMap<>();
+		
+		EnumBinding(Class<?> type) {
+			this.type = type;
+			for (Object c : type.getEnumConstants()) {
+				constants.put(((Enum<?>) c).name(), c);
+			}
+		}
+		
+		Object read(JsonReader reader, EVENT e) {
+			if (e == EVENT.VALUE_NULL) {
+				return null;
+			}
+			
+			Object c = e == EVENT.VALUE_STRING ? constants.get(reader.getString()) : null;
+			if (c == null) {
+				throw mismatch(reader, e, type);
+			}
+			return c;
+		}
+	}
+	
+	private static final class ArrayBinding extends Binding {
+		
+		private final Class<?> component;
+		private final Object[] empty;	// 引用类型的空数组，toArray按它的类型生成结果；基本类型时为null
+		private final Binding element;
+		
+		ArrayBinding(Class<?> component, Type elementType) {
+			this.component = component;
+			this.empty = component.isPrimitive() ? null : (Object[]) Array.newInstance(component, 0);
+			this.element = of(elementType);
+		}
+		
+		Object read(JsonReader reader, EVENT e) {
+			if (e == EVENT.VALUE_NULL) {
+				return null;
+			}
+			if (e != EVENT.START_ARRAY) {
+				throw mismatch(reader, e, component);
+			}
+			
+			List<Object> items = new ArrayList<>();
+			while ((e = reader.next()) != EVENT.END_ARRAY) {
+				items.add(element.read(reader, e));
+			}
+			
+			return empty != null ? items.toArray(empty) : primitives(items);
+		}
+		
+		// 按基本类型逐个拆箱，元素已经由ScalarBinding转换为对应的包装类
+		private Object primitives(List<Object> items) {
+			int n = items.size();
+			if (component == int.class) {
+				int[] a = new int[n];
+				for (int i = 0; i < n; i++) a[i] = (Integer) items.get(i);
+				return a;
+			}
+			if (component == long.class) {
+				long[] a = new long[n];
+				for (int i = 0; i < n; i++) a[i] = (Long) items.get(i);
+				return a;
+			}
+			if (component == double.class) {
+				double[] a = new double[n];
+				for (int i = 0; i < n; i++) a[i] = (Double) items.get(i);
+				return a;
+			}
+			if (component == float.class) {
+				float[] a = new float[n];
+				for (int i = 0; i < n; i++) a[i] = (Float) items.get(i);
+				return a;
+			}
+			if (component == boolean.class) {
+				boolean[] a = new boolean[n];
+				for (int i = 0; i < n; i++) a[i] = (Boolean) items.get(i);
+				return a;
+			}
+			if (component == short.class) {
+				short[] a = new short[n];
+				for (int i = 0; i < n; i++) a[i] = (Short) items.get(i);
+				return a;
+			}
+			if (component == byte.class) {
+				byte[] a = new byte[n];
+				for (int i = 0; i < n; i++) a[i] = (Byte) items.get(i);
+				return a;
+			}
+			char[] a = new char[n];
+			for (int i = 0; i < n; i++) a[i] = (Character) items.get(i);
+			return a;
+		}
+	}
+	
+	private static final class CollectionBinding extends Binding {
+		
+		private final Class<?> type;
+		private final MethodHandle factory;
+		private final Binding element;
+		
+		CollectionBinding(Class<?> type, Type elementType) {
+			this.type = type;
+			this.element = of(elementType);
+			
+			if (type.isAssignableFrom(ArrayList.class)) this.factory = factory(ArrayList.class);
+			else if (type.isAssignableFrom(LinkedHashSet.class)) this.factory = factory(LinkedHashSet.class);
+			else if (type.isAssignableFrom(TreeSet.class)) this.factory = factory(TreeSet.class);
+			else if (type.isAssignableFrom(ArrayDeque.class)) this.factory = factory(ArrayDeque.class);
+			else this.factory = factory(type);
+		}
+		
+		@SuppressWarnings("unchecked")
+		Object read(JsonReader reader, EVENT e) {
+			if (e == EVENT.VALUE_NULL) {
+				return null;
+			}
+			if (e != EVENT.START_ARRAY) {
+				throw mismatch(reader, e, type);
+			}
+			
+			Collection<Object> c = (Collection<Object>) create(factory, type);
+			while ((e = reader.next()) != EVENT.END_ARRAY) {
+				c.add(element.read(reader, e));
+			}
+			return c;
+		}
+	}
+	
+	private static final class MapBinding extends Binding {
+		
+		private final Class<?> type;
+		private final MethodHandle factory;
+		private final Binding value;
+		
+		MapBinding(Class<?> type, Type valueType) {
+			this.type = type;
+			this.value = of(valueType);
+			
+			if (type.isAssignableFrom(HashMap.class)) this.factory = factory(HashMap.class);
+			else if (type.isAssignableFrom(TreeMap.class)) this.factory = factory(TreeMap.class);
+			else this.factory = factory(type);
+		}
+		
+		@SuppressWarnings("unchecked")
+		Object read(JsonReader reader, EVENT e) {
+			if (e == EVENT.VALUE_NULL) {
+				return null;
+			}
+			if (e != EVENT.START_OBJECT) {
+				throw mismatch(reader, e, type);
+			}
+			
+			Map<String, Object> map = (Map<String, Object>) create(factory, type);
+			while ((e = reader.next()) != EVENT.END_OBJECT) {
+				String name = reader.getString();
+				map.put(name, value.read(reader, reader.next()));
+			}
+			return map;
+		}
+	}
+	
+	// 一个可以赋值的属性：setter或者字段
+	private static final class Property {
+		
+		final Binding binding;
+		final MethodHandle setter;	// (Object bean, Object value)void
+		final boolean primitive;	// 基本类型遇到null时不赋值
+		
+		Property(Type type, Class<?> raw, MethodHandle setter) {
+			this.binding = of(type);
+			this.setter = setter.asType(SETTER);
+			this.primitive = raw.isPrimitive();
+		}
+	}
+	
+	// 绑定计划在第一次读取时才生成，这样类型中引用自身时不会无限递归
+	private static final class BeanBinding extends Binding {
+		
+		private final Class<?> type;
+		private volatile MethodHandle factory;
+		private volatile Map<String, Property> properties;
+		
+		BeanBinding(Class<?> type) {
+			this.type = type;
+		}
+		
+		Object read(JsonReader reader, EVENT e) {
+			if (e == EVENT.VALUE_NULL) {
+				return null;
+			}
+			if (e != EVENT.START_OBJECT) {
+				throw mismatch(reader, e, type);
+			}
+			
+			Map<String, Property> props = properties;
+			if (props == null) {
+				factory = factory(type);
+				properties = props = properties(type);
+			}
+			
+			Object bean = create(factory, type);
+			while ((e = reader.next()) != EVENT.END_OBJECT) {
+				Property p = props.get(reader.getString());
+				e = reader.next();
+				if (p == null) { // 未知的成员
+					reader.skipChildren();
+					continue;
+				}
+				
+				Object v = p.binding.read(reader, e);
+				if (v == null && p.primitive) {
+					continue;
+				}
+				try {
+					p.setter.invokeExact(bean, v);
+				} catch (Throwable t) {
+					throw rethrow(t, type);
+				}
+			}
+			return bean;
+		}
+		
+		// 字段在前，setter覆盖同名的字段；子类的字段覆盖父类的同名字段
+		private static Map<String, Property> properties(Class<?> type) {
+			Map<String, Property> props = new HashMap<>();
+			for (Class<?> k = type; k != null && k != Object.class; k = k.getSuperclass()) {
+				for (Field f : k.getDeclaredFields()) {
+					int m = f.getModifiers();
+					if (Modifier.isStatic(m) || Modifier.isTransient(m) || Modifier.isFinal(m) || props.containsKey(f.getName())) {
+						continue;
+					}
+					if (accessible(f)) {
+						try {
+							props.put(f.getName(), new Property(f.getGenericType(), f.getType(), LOOKUP.unreflectSetter(f)));
+						} catch (IllegalAccessException ex) { // 无法访问的字段忽略
+						}
+					}
+				}
+			}
+			
+			for (Method m : type.getMethods()) {
+				String name = m.getName();
+				if (Modifier.isStatic(m.getModifiers()) || m.getParameterCount() != 1 || name.length() <= 3 || !name.startsWith("set")) {
+					continue;
+				}
+				if (accessible(m)) {
+					try {
+						props.put(decapitalize(name.substring(3)), new Property(m.getGenericParameterTypes()[0], m.getParameterTypes()[0], LOOKUP.unreflect(m)));
+					} catch (IllegalAccessException ex) {
+					}
+				}
+			}
+			return props;
+		}
+		
+		// 与java.beans.Introspector.decapitalize相同：URL仍为URL，Name为name
+		private static String decapitalize(String s) {
+			if (s.length() > 1 && Character.isUpperCase(s.charAt(0)) && Character.isUpperCase(s.charAt(1))) {
+				return s;
+			}
+			return Character.toLowerCase(s.charAt(0)) + s.substring(1);
+		}
+	}
+	
+	// record没有无参构造方法，成员值先收集起来，最后调用规范构造方法
+	private static final class RecordBinding extends Binding {
+		
+		private final Class<?> type;
+		private volatile Plan plan;
+		
+		private static final class Plan {
+			MethodHandle constructor;	// (Object[])Object
+			Map<String, Integer> index = new HashMap<>();
+			Binding[] bindings;
+			Object[] defaults;
+		}
+		
+		RecordBinding(Class<?> type) {
+			this.type = type;
+		}
+		
+		Object read(JsonReader reader, EVENT e) {
+			if (e == EVENT.VALUE_NULL) {
+				return null;
+			}
+			if (e != EVENT.START_OBJECT) {
+				throw mismatch(reader, e, type);
+			}
+			
+			Plan p = plan;
+			if (p == null) {
+				plan = p = plan(type);
+			}
+			
+			Object[] args = p.defaults.clone();
+			while ((e = reader.next()) != EVENT.END_OBJECT) {
+				Integer i = p.index.get(reader.getString());
+				e = reader.next();
+				if (i == null) {
+					reader.skipChildren();
+					continue;
+				}
+				
+				Object v = p.bindings[i].read(reader, e);
+				if (v != null) args[i] = v;
+			}
+			
+			try {
+				return p.constructor.invokeExact(args);
+			} catch (Throwable t) {
+				throw rethrow(t, type);
+			}
+		}
+		
+		// 编译目标为Java 8，Class.getRecordComponents只能通过反射调用，只在生成计划时调用一次
+		private static Plan plan(Class<?> type) {
+			try {
+				Object[] components = (Object[]) Class.class.getMethod("getRecordComponents").invoke(type);
+				Method getName = null, getType = null, getGenericType = null;
+				
+				Plan p = new Plan();
+				Class<?>[] types = new Class<?>[components.length];
+				p.bindings = new Binding[components.length];
+				p.defaults = new Object[components.length];
+				for (int i = 0; i < components.length; i++) {
+					if (getName == null) {
+						Class<?> rc = components[i].getClass();
+						getName = rc.getMethod("getName");
+						getType = rc.getMethod("getType");
+						getGenericType = rc.getMethod("getGenericType");
+					}
+					types[i] = (Class<?>) getType.invoke(components[i]);
+					p.index.put((String) getName.invoke(components[i]), i);
+					p.bindings[i] = of((Type) getGenericType.invoke(components[i]));
+					p.defaults[i] = defaultValue(types[i]);
+				}
+				
+				Constructor<?> c = type.getDeclaredConstructor(types);
+				c.setAccessible(true);
+				p.constructor = LOOKUP.unreflectConstructor(c)
+						.asSpreader(Object[].class, components.length)
+						.asType(MethodType.methodType(Object.class, Object[].class));
+				return p;
+			} catch (ReflectiveOperationException ex) {
+				throw new IllegalArgumentException("Can not bind to record " + type.getName(), ex);
+			}
+		}
+	}
+	
+	// 无参构造方法，包括非public的
+	private static MethodHandle factory(Class<?> type) {
+		try {
+			Constructor<?> c = type.getDeclaredConstructor();
+			c.setAccessible(true);
+			return LOOKUP.unreflectConstructor(c).asType(FACTORY);
+		} catch (NoSuchMethodException | IllegalAccessException | RuntimeException ex) {
+			throw new IllegalArgumentException("No accessible default constructor in " + type.getName(), ex);
+		}
+	}
+	
+	private static Object create(MethodHandle factory, Class<?> type) {
+		try {
+			return factory.invokeExact();
+		} catch (Throwable t) {
+			throw rethrow(t, type);
+		}
+	}
+	
+	// 模块不开放时setAccessible会失败，这样的成员忽略
+	private static boolean accessible(AccessibleObject o) {
+		try {
+			o.setAccessible(true);
+			return true;
+		} catch (RuntimeException ex) {
+			return false;
+		}
+	}
+	
+	private static Object defaultValue(Class<?> type) {
+		return type.isPrimitive() ? Array.get(Array.newInstance(type, 1), 0) : null;
+	}
+	
+	private static RuntimeException mismatch(JsonReader reader, EVENT e, Class<?> type) {
+		return new RuntimeException("Can not bind " + e + " to " + type.getName()
+				+ " at row:" + reader.getRowCount() + ", col:" + reader.getColCount() + ".");
+	}
+	
+	private static RuntimeException rethrow(Throwable t, Class<?> type) {
+		if (t instanceof RuntimeException) return (RuntimeException) t;
+		if (t instanceof Error) throw (Error) t;
+		return new RuntimeException("Can not create " + type.getName(), t);
+	}
+}
@@ -0,0 +1,581 @@
+package cn.via;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import cn.via.ParseOptions.NUMBER_POLICY;
+import cn.via.Tokenizer.TAG;
+
+/**
+ * 直接在UTF-8字节上做词法分析，输入可以是byte[]或者ByteBuffer（堆内或者堆外）。
+ * 扫描过程中只记录token的位置，字符串只有在调用getToken时才会解码。
+ * 也可以按窗口映射一个文件，超过2G的文件会在读到窗口结尾时从当前token处重新映射。
+ * 增量模式下数据通过feed分批送入，数据不足时peek返回TAG.INCOMPLETE，送入更多数据后从当前token处重新扫描。
+ * @author venia
+ */
+public class ByteTokenizer implements Lexer {
+	
+	private ByteBuffer buf;	// 源数据，只使用绝对位置读取，不会改变其position
+	private int pos;		// 当前读取位置
+	private int limit;		// 数据结尾
+	
+	private TAG peeked;		// peek的结果，swallow之前重复调用peek不会重新扫描
+	private int tokenStart;	// 当前token在buf中的起止位置，字符串不含引号
+	private int tokenEnd;
+	private int next;		// 吃掉当前token后的读取位置
+	
+	private String token;	// 解码后的字符串，按需生成
+	private boolean escaped;	// 当前的字符串含有转义，需要解码
+	private int scanned;		// 增量模式下没有结束的字符串已经检查过的长度（相对pos），送入更多数据后从这里继续，没有时为0
+	private final NumberParser num = new NumberParser();
+	private boolean quiet;	// 出错时不打印环境，JsonValidator使用
+	private char[] digits = new char[32];	// 数字都是ASCII字符，复制到这里再解析
+	private byte[] scratch;	// 堆外内存解码时使用的临时数组
+	
+	private FileChannel channel;	// 文件映射模式下的数据来源，其他模式下为null
+	private long base;				// 当前窗口在文件中的起始位置
+	private long size;				// 文件大小
+	private int windowSize;
+	
+	private boolean feeding;		// 增量模式
+	private boolean ended;			// 增量模式下输入已经结束
+	
+	private int rowCount;
+	private int colCount;	// 列号按字节计算
+	
+	public static final int DEFAULT_WINDOW_SIZE = 1 << 30;
+	
+	public ByteTokenizer(byte[] src) {
+		this(ByteBuffer.wrap(src));
+	}
+	
+	public ByteTokenizer(byte[] src, int offset, int length) {
+		this(ByteBuffer.wrap(src, offset, length));
+	}
+	
+	// 解析 src 的 position 到 limit 之间的数据
+	public ByteTokenizer(ByteBuffer src) {
+		if(src == null) throw new NullPointerException();
+		
+		this.buf = src.duplicate();
+		this.pos = src.position();
+		this.limit = src.limit();
+		
+		this.rowCount = 1;
+		this.colCount = 1;
+	}
+	
+	public ByteTokenizer(FileChannel channel) throws IOException {
+		this(channel, DEFAULT_WINDOW_SIZE);
+	}
+	
+	// 改为解析 src 的 position 到 limit 之间的数据，直接使用src，所有状态恢复为初始值，供JsonParser复用
+	void reset(ByteBuffer src) {
+		this.buf = src;
+		this.pos = src.position();
+		this.limit = src.limit();
+		this.base = 0;
+		this.peeked = null;
+		this.token = null;
+		this.escaped = false;
+		this.scanned = 0;
+		
+		this.rowCount = 1;
+		this.colCount = 1;
+	}
+	
+	// 只检查语法：出错时不打印环境，数字只检查格式不计算数值，供JsonValidator使用
+	void setValidating(boolean validating) {
+		this.quiet = validating;
+		num.syntaxOnly = validating;
+	}
+	
+	// 文件映射模式：第一次peek时才映射第一个窗口
+	public ByteTokenizer(FileChannel channel, int windowSize) throws IOException {
+		if(channel == null) throw new NullPointerException();
+		if(windowSize <= 0) throw new IllegalArgumentException("Window size must be positive!");
+		
+		this.buf = ByteBuffer.allocate(0);
+		this.pos = 0;
+		this.limit = 0;
+		this.channel = channel;
+		this.base = 0;
+		this.size = channel.size();
+		this.windowSize = windowSize;
+		
+		this.rowCount = 1;
+		this.colCount = 1;
+	}
+	
+	// 增量模式：第一次peek之前通过feed送入数据，调用end之后才认为输入结束
+	ByteTokenizer() {
+		this.buf = ByteBuffer.allocate(4096);
+		this.pos = 0;
+		this.limit = 0;
+		this.feeding = true;
+		
+		this.rowCount = 1;
+		this.colCount = 1;
+	}
+	
+	// 追加 src 的 position 到 limit 之间的数据。已经吃掉的数据会被丢弃，尚未扫描完的token保留在缓冲区中
+	void feed(ByteBuffer src) {
+		if(!feeding) throw new IllegalStateException("Not in incremental mode!");
+		if(ended) throw new IllegalStateException("Input had been ended!");
+		
+		if(peeked == null && pos > 0) { // 没有peek的token时，pos之前的数据都不再需要
+			byte[] a = buf.array();
+			System.arraycopy(a, pos, a, 0, limit - pos);
+			base += pos;
+			limit -= pos;
+			pos = 0;
+		}
+		
+		int n = src.remaining();
+		if(limit + n > buf.capacity()) {
+			buf = ByteBuffer.wrap(Arrays.copyOf(buf.array(), Math.max(buf.capacity() * 2, limit + n)));
+		}
+		src.get(buf.array(), limit, n);
+		limit += n;
+	}
+	
+	// 增量模式下标记输入结束，之后数据不足时按照输入结束处理
+	void end() {
+		ended = true;
+	}
+	
+	// 增量模式下输入尚未结束，数据不足时需要等待更多的输入
+	private boolean waiting() {
+		return feeding && !ended;
+	}
+	
+	// 确保 buf[pos+n] 可读，必要时映射下一个窗口；返回false表示输入已经结束
+	private boolean ensure(int n) {
+		while(pos + n >= limit) {
+			if(!remap()) return false;
+		}
+		return true;
+	}
+	
+	// 从pos处开始映射新的窗口，pos之前已经处理过的数据不再需要
+	private boolean remap() {
+		if(channel == null || base + limit >= size) return false;
+		
+		if(pos == 0 && limit > 0) { // 单个token比窗口还大，只能扩大窗口
+			windowSize = (int) Math.min((long) windowSize * 2, Integer.MAX_VALUE);
+		}
+		
+		try {
+			base += pos;
+			int len = (int) Math.min(windowSize, size - base);
+			buf = channel.map(FileChannel.MapMode.READ_ONLY, base, len);
+			pos = 0;
+			limit = len;
+			return true;
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+	
+	// 每个token只扫描一次，swallow之前重复调用peek直接返回上次的结果
+	public TAG peek() {
+		if(peeked != null) {
+			return peeked;
+		}
+		
+		while(true) { // 有空白字符时重复读，直到非空字符
+			if(!ensure(0)) {
+				return waiting() ? TAG.INCOMPLETE : TAG.EOF;
+			}
+			
+			byte b = buf.get(pos);
+			switch(b) {
+			case '{': return single(TAG.L_BRACE);
+			case '}': return single(TAG.R_BRACE);
+			case '[': return single(TAG.L_BRACKET);
+			case ']': return single(TAG.R_BRACKET);
+			case ',': return single(TAG.COMMA);
+			case ';': return single(TAG.SEMICOLON);
+			case ':': return single(TAG.COLON);
+			
+			case ' ':
+			case '\t': {
+				pos++; // 跳过空白字符
+				break;
+			}
+			
+			case '\r': {
+				if(!ensure(1) && waiting()) return TAG.INCOMPLETE; // 不知道后面是否紧跟 \n
+				pos++; // 跳过换行符
+				if(ensure(0) && '\n' == buf.get(pos)) pos++; // 处理 \r\n 这种情况
+				rowCount++;
+				colCount=0;
+				break;
+			}
+			case '\n': {
+				pos++; // 跳过换行符
+				rowCount++;
+				colCount=0;
+				break;
+			}
+			
+			case '\"': {
+				if(!scanString('\"')) return TAG.INCOMPLETE;
+				return peeked = TAG.STRING;
+			}
+			case '\'': {
+				if(!scanString('\'')) return TAG.INCOMPLETE;
+				return peeked = TAG.STRING;
+			}
+			
+			default: {
+				TAG tag = scanLiteral();
+				return tag == TAG.INCOMPLETE ? tag : (peeked = tag);
+			}
+			}
+		}
+	}
+	
+	private TAG single(TAG tag) {
+		tokenStart = pos;
+		tokenEnd = pos + 1;
+		next = pos + 1;
+		return peeked = tag;
+	}
+	
+	// 扫描一个字符串，只记录位置并检查转义，不解码；增量模式下没有结束的引号时返回false
+	private boolean scanString(char sep) {
+		int end = 1; // 首字符为 " 或者 '，直接跳过。end为相对pos的偏移，重新映射后依然有效
+		int checked = 1; // end之前的内容都已经检查过，数据不足时从这里继续
+		boolean closed = false;
+		long seps = StringDecoder.broadcast(sep);
+		if(scanned > 0) { // 上次数据不足，已经检查过的部分不再重新扫描，escaped也保留上次的结果
+			end = scanned;
+			scanned = 0;
+		}
+		else {
+			escaped = false;
+		}
+		
+		while(true) {
+			end = StringDecoder.find(buf, pos + end, limit, seps) - pos; // 每次比较8个字节，跳过普通字符
+			checked = end;
+			if(!ensure(end)) break;
+			byte c = buf.get(pos + end);
+			end++;
+			
+			if(c == sep) {
+				closed = true;
+				break;
+			}
+			else if(c == '\\') { // 处理 \" \\ \/ \b \f \n \r \t 以及 \u004a
+				escaped = true;
+				if(!ensure(end)) break;
+				if('u' == buf.get(pos + end)) {
+					if(!ensure(end + 4)) break;
+					for(int k = 1; k <= 4; k++) {
+						if(StringDecoder.hex(buf.get(pos + end + k)) < 0) badEscape();
+					}
+					end += 5;
+				}
+				else if(StringDecoder.unescape(buf.get(pos + end)) < 0) {
+					badEscape();
+				}
+				else {
+					end++;
+				}
+			}
+		}
+		
+		if(!closed && waiting()) {
+			scanned = checked; // 不完整的转义从反斜杠处重新检查
+			return false;
+		}
+		
+		if(!closed && !ensure(end - 1)) {
+			throw error("Bad grammar at row:");
+		}
+		
+		if(!closed) {
+			throw error("Expect a " + sep + " at row:");
+		}
+		
+		tokenStart = pos + 1;	// 去掉首位的引号
+		tokenEnd = pos + end - 1;
+		next = pos + end;
+		return true;
+	}
+	
+	private void badEscape() {
+		throw error("Bad escape at row:");
+	}
+	
+	// msg以"at row:"结尾，补上当前的位置；只检查语法时不打印环境，异常也不记录调用栈
+	private RuntimeException error(String msg) {
+		msg = msg + getRowCount() + ", col:" + getColCount() + ".";
+		if(quiet) return new QuietException(msg);
+		
+		printEnv(System.out);
+		return new RuntimeException(msg);
+	}
+	
+	// true false null 以及数字，都是ASCII字符
+	private TAG scanLiteral() {
+		int end = 1;
+		
+		while(ensure(end)) {
+			byte c = buf.get(pos + end);
+			if(c == '}' || c == ']' || c == ',' || c == ' ' || c == '\t' || c == '\r' || c == '\n') break;
+			end++;
+		}
+		
+		if(!ensure(end) && waiting()) { // 可能只读到了一部分
+			return TAG.INCOMPLETE;
+		}
+		
+		tokenStart = pos;
+		tokenEnd = pos + end;
+		next = pos + end;
+		
+		if (isWord("true")) {
+			return TAG.TRUE;
+		}
+		else if (isWord("false")) {
+			return TAG.FALSE;
+		}
+		else if (isWord("null")) {
+			return TAG.NULL;
+		}
+		
+		// treat as a number
+		int len = tokenEnd - tokenStart;
+		if (digits.length < len) {
+			digits = Arrays.copyOf(digits, Math.max(len, digits.length * 2));
+		}
+		for (int i = 0; i < len; i++) {
+			digits[i] = (char) (buf.get(tokenStart + i) & 0xff);
+		}
+		if (!num.parse(digits, 0, len)) {
+			throw error("Bad gramma at row:");
+		}
+		return TAG.NUMBER;
+	}
+	
+	// 当前token是否为给定的小写单词，不区分大小写
+	private boolean isWord(String word) {
+		if(tokenEnd - tokenStart != word.length()) return false;
+		
+		for(int i = 0; i < word.length(); i++) {
+			if((buf.get(tokenStart + i) | 0x20) != word.charAt(i)) return false;
+		}
+		return true;
+	}
+	
+	// 将当前token解码为字符串
+	private String decode(Charset cs) {
+		int len = tokenEnd - tokenStart;
+		if(buf.hasArray()) {
+			return new String(buf.array(), buf.arrayOffset() + tokenStart, len, cs);
+		}
+		
+		if(scratch == null || scratch.length < len) {
+			scratch = new byte[Math.max(len, 64)];
+		}
+		for(int i = 0; i < len; i++) {
+			scratch[i] = buf.get(tokenStart + i);
+		}
+		return new String(scratch, 0, len, cs);
+	}
+	
+	// 衹有tag為 STRING 時有意義，第一次調用時才解码
+	public String getToken() {
+		if(token == null) {
+			token = escaped ? StringDecoder.decode(buf, tokenStart, tokenEnd) : decode(StandardCharsets.UTF_8);
+		}
+		return token;
+	}
+	
+	// 当tag为num时，可以获取num对象，其实例可能为Integer，Long，Double，BigInteger
+	public Object getNum() {
+		return num.getNum(NUMBER_POLICY.DEFAULT);
+	}
+	
+	public Object getNum(NUMBER_POLICY policy) {
+		return num.getNum(policy);
+	}
+	
+	public boolean isIntegral() {
+		return num.isIntegral();
+	}
+	
+	public boolean isDecimal() {
+		return num.isDecimal();
+	}
+	
+	public long getLong() {
+		return num.getLong();
+	}
+	
+	public double getDouble() {
+		return num.getDouble();
+	}
+	
+	// ASCII直接逐字节比较，遇到多字节字符时才解码
+	public boolean matches(String s) {
+		if(token != null || escaped) return getToken().equals(s);
+		
+		int n = tokenEnd - tokenStart;
+		if(n < s.length()) return false; // UTF-8的字节数不会少于字符数
+		
+		for(int i = 0; i < n; i++) {
+			byte b = buf.get(tokenStart + i);
+			if(b < 0) return getToken().equals(s);
+			if(i >= s.length() || b != s.charAt(i)) return false;
+		}
+		return n == s.length();
+	}
+	
+	public String getToken(SymbolTable symbols) {
+		if(token == null) {
+			token = escaped ? getToken() : symbols.lookup(buf, tokenStart, tokenEnd); // 含有转义的名字直接解码
+		}
+		return token;
+	}
+	
+	// 源数据不会被修改（映射的窗口在被引用期间也一直有效），所以总是可以返回视图；
+	// 增量模式下缓冲区会被复用，只能返回String
+	public CharSequence getLazyToken() {
+		if(token != null || feeding) {
+			return getToken();
+		}
+		return new JsonString(buf, tokenStart, tokenEnd);
+	}
+	
+	// 当前token在整个输入中的起止位置（按字节计），字符串不含引号
+	public long getTokenStart() {
+		return base + tokenStart;
+	}
+	
+	public long getTokenEnd() {
+		return base + tokenEnd;
+	}
+	
+	public int getRowCount() {
+		return this.rowCount;
+	}
+	
+	public int getColCount() {
+		return this.colCount;
+	}
+	
+	// 当前token为 { 或 [ 时，只做括号匹配，跳过整个对象或数组，不检查语法也不解析其中的token。
+	// 之后token的起止位置为整个对象或数组（含括号）
+	public void skipContainer() {
+		if(peeked != TAG.L_BRACE && peeked != TAG.L_BRACKET) {
+			throw new IllegalStateException("Not at the start of an object or array!");
+		}
+		if(feeding) {
+			throw new IllegalStateException("Can not skip in incremental mode!");
+		}
+		
+		// 边读边移动pos，流模式下补充数据时可以丢弃已经跳过的部分，内存占用不随对象或数组的大小增长
+		long start = base + pos;	// 在整个输入中的起始位置，base会随着补充数据变化
+		int level = 0;
+		byte quote = 0;			// 当前所在字符串的引号，不在字符串中时为0
+		boolean escape = false;	// 字符串中上一个字符是反斜杠
+		int col = colCount;
+		ByteBuffer b = buf;
+		int i = pos;			// 读取位置放在局部变量中，只在补充数据时与pos同步
+		while(true) {
+			if(i >= limit) {
+				pos = i;
+				if(!ensure(0)) break;
+				b = buf;
+				i = pos;
+			}
+			byte c = b.get(i++);
+			col++;
+			
+			if(quote != 0) { // 跳过字符串，其中的括号不计数
+				if(escape) escape = false;
+				else if(c == '\\') escape = true;
+				else if(c == quote) quote = 0;
+				continue;
+			}
+			
+			switch(c) {
+			case '{':
+			case '[':
+				level++;
+				break;
+			case '}':
+			case ']':
+				level--;
+				break;
+			case '\"':
+			case '\'':
+				quote = c;
+				break;
+			case '\n':
+				rowCount++;
+				col = 0;
+				break;
+			case '\r':
+				pos = i;
+				if(!ensure(0) || buf.get(pos) != '\n') {
+					rowCount++;
+					col = 0;
+				}
+				b = buf;
+				i = pos;
+				break;
+			}
+			
+			if(level == 0) {
+				pos = i;
+				tokenStart = (int) (start - base);
+				tokenEnd = pos;
+				next = pos;
+				colCount = col;
+				peeked = null;
+				token = null;
+				escaped = false;
+				return;
+			}
+		}
+		
+		throw error("The object or array is not closed at row:");
+	}
+	
+	// 吃掉当前的token，位置在peek时已经记录
+	public void swallow(TAG tag) {
+		if(tag == TAG.EOF || peeked == null) return;
+		
+		colCount += next - pos;
+		pos = next;
+		peeked = null;
+		token = null;
+		escaped = false;
+	}
+	
+	// 打印当前解析的环境
+	public void printEnv(OutputStream out) {
+		try {
+			int from = (pos>20)?pos-20:0;
+			int to = (limit-pos)<20?limit:pos+20;
+			
+			out.write("JSON string may goes error at ==>\r\n ".getBytes());
+			for(int i = from; i < pos; i++) out.write(buf.get(i));
+			out.write('^'); // anchor
+			for(int i = pos; i < to; i++) out.write(buf.get(i));
+			out.flush();
+		} catch (IOException e) { // ignore
+		}
+	}
+}
@@ -0,0 +1,121 @@
+package cn.via;
+
+import java.util.Arrays;
+
+import cn.via.ParseOptions.NUMBER_POLICY;
+
+/**
+ * 构建紧凑的JsonObject/JsonArray树，数字通过原始类型的回调直接放入JsonArray的long[]/double[]中。
+ * @author venia
+ */
+final class CompactBuilder implements JsonHandler {
+	
+	private NUMBER_POLICY policy;
+	
+	private Object root;
+	private Object[] stack = new Object[32];	// 正在构建的对象与数组
+	private int depth;
+	private String memName;						// 解析对象过程中，保存键值对的键值，用完即清空
+	
+	CompactBuilder(NUMBER_POLICY policy) {
+		this.policy = policy;
+	}
+	
+	Object getRoot() {
+		return root;
+	}
+	
+	void setPolicy(NUMBER_POLICY policy) {
+		this.policy = policy;
+	}
+	
+	// 清空状态以便复用，不再引用上次的结果
+	void reset() {
+		Arrays.fill(stack, null);
+		root = null;
+		depth = 0;
+		memName = null;
+	}
+	
+	public void startObject() {
+		push(new JsonObject());
+	}
+	
+	public void endObject() {
+		depth--;
+	}
+	
+	public void startArray() {
+		push(new JsonArray(policy));
+	}
+	
+	public void endArray() {
+		depth--;
+	}
+	
+	public void key(String name) {
+		memName = name;
+	}
+	
+	public void value(CharSequence value) {
+		add(value);
+	}
+	
+	public void value(Number value) {
+		add(value);
+	}
+	
+	public void value(long value) {
+		if (memName == null && depth > 0) {
+			((JsonArray) stack[depth - 1]).addLong(value);
+		}
+		else if (policy != NUMBER_POLICY.LONG_DOUBLE && value >= Integer.MIN_VALUE && value <= Integer.MAX_VALUE) {
+			add(Integer.valueOf((int) value));
+		}
+		else {
+			add(Long.valueOf(value));
+		}
+	}
+	
+	public void value(double value) {
+		if (memName == null && depth > 0) {
+			((JsonArray) stack[depth - 1]).addDouble(value);
+		}
+		else {
+			add(Double.valueOf(value));
+		}
+	}
+	
+	public void value(boolean value) {
+		add(value ? Tokenizer.TRUE : Tokenizer.FALSE);
+	}
+	
+	public void nullValue() {
+		add(null);
+	}
+	
+	private void push(Object container) {
+		if (root == null) {
+			root = container;
+		}
+		else {
+			add(container);
+		}
+		
+		if (depth == stack.length) {
+			stack = Arrays.copyOf(stack, depth * 2);
+		}
+		stack[depth++] = container;
+	}
+	
+	// 成员名不为空时放入对象，否则放入数组
+	private void add(Object value) {
+		if (memName != null) {
+			((JsonObject) stack[depth - 1]).put(memName, value);
+			memName = null;
+		}
+		else {
+			((JsonArray) stack[depth - 1]).add(value);
+		}
+	}
+}
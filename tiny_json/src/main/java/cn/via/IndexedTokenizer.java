@@ -0,0 +1,334 @@
+package cn.via;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import cn.via.ParseOptions.NUMBER_POLICY;
+import cn.via.Tokenizer.TAG;
+
+/**
+ * 借助结构索引的UTF-8词法分析器，见StructuralIndex。
+ * 字符串直接跳到索引中的结尾引号，不再逐个字节扫描；跳过对象与数组时也只遍历索引。其余行为与ByteTokenizer相同。
+ * 只用于完整的byte[]输入，由TinyJsonParser在大文档并且索引可用时选用。
+ * 行号与列号只有出错时才需要，按当前位置从头统计换行符得到，列号按字节计算。
+ * @author venia
+ */
+final class IndexedTokenizer implements Lexer {
+	
+	private final byte[] buf;
+	private final int limit;
+	private final int[] index;	// 结构字符与引号的位置
+	private final int count;
+	private ByteBuffer view;	// 符号表与JsonString使用，按需生成
+	
+	private int pos;			// 当前读取位置
+	private int cursor;			// index[cursor]为pos之后的第一个索引位置
+	
+	private TAG peeked;			// peek的结果，swallow之前重复调用peek不会重新扫描
+	private int tokenStart;		// 当前token的起止位置，字符串不含引号
+	private int tokenEnd;
+	private int next;			// 吃掉当前token后的读取位置
+	private int nextCursor;
+	
+	private String token;		// 解码后的字符串，按需生成
+	private boolean escaped;	// 当前的字符串含有转义，需要解码
+	private final NumberParser num = new NumberParser();
+	private char[] digits = new char[32];
+	
+	// index为StructuralIndex.build的结果，最后一个元素为个数
+	IndexedTokenizer(byte[] src, int[] index) {
+		this.buf = src;
+		this.limit = src.length;
+		this.index = index;
+		this.count = index[index.length - 1];
+	}
+	
+	public TAG peek() {
+		if(peeked != null) {
+			return peeked;
+		}
+		
+		while(pos < limit) {
+			byte b = buf[pos];
+			switch(b) {
+			case ' ':
+			case '\t':
+			case '\r':
+			case '\n':
+				pos++; // 跳过空白字符
+				break;
+			
+			case '{': return single(TAG.L_BRACE);
+			case '}': return single(TAG.R_BRACE);
+			case '[': return single(TAG.L_BRACKET);
+			case ']': return single(TAG.R_BRACKET);
+			case ',': return single(TAG.COMMA);
+			case ';': return single(TAG.SEMICOLON);
+			case ':': return single(TAG.COLON);
+			
+			case '\"': {
+				if(cursor + 1 >= count) { // 没有结尾的引号
+					printEnv(System.out);
+					throw new RuntimeException("Expect a \" at row:" + getRowCount() + ", col:" + getColCount() + ".");
+				}
+				tokenStart = pos + 1;
+				tokenEnd = index[cursor + 1];
+				next = tokenEnd + 1;
+				nextCursor = cursor + 2;
+				checkEscapes();
+				return peeked = TAG.STRING;
+			}
+			
+			default: {
+				return peeked = scanLiteral();
+			}
+			}
+		}
+		return TAG.EOF;
+	}
+	
+	// 每次比较8个字节查找反斜杠，没有转义的字符串不需要解码；未转义的控制字符与其他词法分析器一样按原样接受
+	private void checkEscapes() {
+		int i = StringDecoder.indexOfEscape(view(), tokenStart, tokenEnd);
+		escaped = i >= 0;
+		
+		while(i >= 0) { // 索引已经跳过了被转义的引号，这里只需要检查转义是否合法
+			byte e = buf[i + 1];
+			if(e == 'u') {
+				for(int k = 2; k <= 5; k++) {
+					if(i + k >= tokenEnd || StringDecoder.hex(buf[i + k]) < 0) badEscape(i);
+				}
+				i += 6;
+			}
+			else if(StringDecoder.unescape(e) < 0) {
+				badEscape(i);
+			}
+			else {
+				i += 2;
+			}
+			i = StringDecoder.indexOfEscape(view(), i, tokenEnd);
+		}
+	}
+	
+	private void badEscape(int at) {
+		pos = at;
+		printEnv(System.out);
+		throw new RuntimeException("Bad escape at row:" + getRowCount() + ", col:" + getColCount() + ".");
+	}
+	
+	private TAG single(TAG tag) {
+		tokenStart = pos;
+		tokenEnd = pos + 1;
+		next = pos + 1;
+		nextCursor = cursor < count && index[cursor] == pos ? cursor + 1 : cursor; // 分号不在索引中
+		return peeked = tag;
+	}
+	
+	// true false null 以及数字，最远到下一个索引位置
+	private TAG scanLiteral() {
+		int stop = cursor < count ? index[cursor] : limit;
+		int end = pos + 1;
+		while(end < stop) {
+			byte c = buf[end];
+			if(c == ' ' || c == '\t' || c == '\r' || c == '\n') break;
+			end++;
+		}
+		
+		tokenStart = pos;
+		tokenEnd = end;
+		next = end;
+		nextCursor = cursor;
+		
+		if (isWord("true")) {
+			return TAG.TRUE;
+		}
+		else if (isWord("false")) {
+			return TAG.FALSE;
+		}
+		else if (isWord("null")) {
+			return TAG.NULL;
+		}
+		
+		int len = tokenEnd - tokenStart;
+		if (digits.length < len) {
+			digits = Arrays.copyOf(digits, Math.max(len, digits.length * 2));
+		}
+		for (int i = 0; i < len; i++) {
+			digits[i] = (char) (buf[tokenStart + i] & 0xff);
+		}
+		if (!num.parse(digits, 0, len)) {
+			printEnv(System.out);
+			throw new RuntimeException("Bad gramma at row:"
+					+ getRowCount() + ", col:" + getColCount() + ".");
+		}
+		return TAG.NUMBER;
+	}
+	
+	// 当前token是否为给定的小写单词，不区分大小写
+	private boolean isWord(String word) {
+		if(tokenEnd - tokenStart != word.length()) return false;
+		
+		for(int i = 0; i < word.length(); i++) {
+			if((buf[tokenStart + i] | 0x20) != word.charAt(i)) return false;
+		}
+		return true;
+	}
+	
+	private ByteBuffer view() {
+		if(view == null) {
+			view = ByteBuffer.wrap(buf);
+		}
+		return view;
+	}
+	
+	public String getToken() {
+		if(token == null) {
+			token = escaped ? StringDecoder.decode(view(), tokenStart, tokenEnd) : new String(buf, tokenStart, tokenEnd - tokenStart, StandardCharsets.UTF_8);
+		}
+		return token;
+	}
+	
+	// ASCII直接逐字节比较，遇到多字节字符时才解码
+	public boolean matches(String s) {
+		if(token != null || escaped) return getToken().equals(s);
+		
+		int n = tokenEnd - tokenStart;
+		if(n < s.length()) return false;
+		
+		for(int i = 0; i < n; i++) {
+			byte b = buf[tokenStart + i];
+			if(b < 0) return getToken().equals(s);
+			if(i >= s.length() || b != s.charAt(i)) return false;
+		}
+		return n == s.length();
+	}
+	
+	public String getToken(SymbolTable symbols) {
+		if(token == null) {
+			token = escaped ? getToken() : symbols.lookup(view(), tokenStart, tokenEnd); // 含有转义的名字直接解码
+		}
+		return token;
+	}
+	
+	public CharSequence getLazyToken() {
+		if(token != null) {
+			return token;
+		}
+		return new JsonString(view(), tokenStart, tokenEnd);
+	}
+	
+	public Object getNum() {
+		return num.getNum(NUMBER_POLICY.DEFAULT);
+	}
+	
+	public Object getNum(NUMBER_POLICY policy) {
+		return num.getNum(policy);
+	}
+	
+	public boolean isIntegral() {
+		return num.isIntegral();
+	}
+	
+	public boolean isDecimal() {
+		return num.isDecimal();
+	}
+	
+	public long getLong() {
+		return num.getLong();
+	}
+	
+	public double getDouble() {
+		return num.getDouble();
+	}
+	
+	public long getTokenStart() {
+		return tokenStart;
+	}
+	
+	public long getTokenEnd() {
+		return tokenEnd;
+	}
+	
+	public int getRowCount() {
+		int rows = 1;
+		for(int i = 0; i < pos; i++) {
+			if(buf[i] == '\n' || (buf[i] == '\r' && (i + 1 >= limit || buf[i + 1] != '\n'))) rows++;
+		}
+		return rows;
+	}
+	
+	public int getColCount() {
+		int i = pos;
+		while(i > 0 && buf[i - 1] != '\n' && buf[i - 1] != '\r') i--;
+		return pos - i + 1;
+	}
+	
+	// 当前token为 { 或 [ 时，沿着索引做括号匹配，跳过整个对象或数组
+	public void skipContainer() {
+		if(peeked != TAG.L_BRACE && peeked != TAG.L_BRACKET) {
+			throw new IllegalStateException("Not at the start of an object or array!");
+		}
+		
+		int level = 0;
+		for(int k = cursor; k < count; k++) {
+			int p = index[k];
+			switch(buf[p]) {
+			case '{':
+			case '[':
+				level++;
+				break;
+			case '}':
+			case ']':
+				level--;
+				break;
+			case '\"':
+				k++; // 跳过结尾的引号
+				break;
+			}
+			
+			if(level == 0) {
+				tokenStart = pos;
+				tokenEnd = p + 1;
+				next = tokenEnd;
+				pos = tokenEnd;
+				cursor = k + 1;
+				peeked = null;
+				token = null;
+				escaped = false;
+				return;
+			}
+		}
+		
+		printEnv(System.out);
+		throw new RuntimeException("The object or array is not closed at row:" + getRowCount() + ", col:" + getColCount() + ".");
+	}
+	
+	// 吃掉当前的token，位置在peek时已经记录
+	public void swallow(TAG tag) {
+		if(tag == TAG.EOF || peeked == null) return;
+		
+		pos = next;
+		cursor = nextCursor;
+		peeked = null;
+		token = null;
+		escaped = false;
+	}
+	
+	// 打印当前解析的环境
+	public void printEnv(OutputStream out) {
+		try {
+			int from = (pos>20)?pos-20:0;
+			int to = (limit-pos)<20?limit:pos+20;
+			
+			out.write("JSON string may goes error at ==>\r\n ".getBytes());
+			out.write(buf, from, pos - from);
+			out.write('^'); // anchor
+			out.write(buf, pos, to - pos);
+			out.flush();
+		} catch (IOException e) { // ignore
+		}
+	}
+}
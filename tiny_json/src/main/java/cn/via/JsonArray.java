@@ -0,0 +1,197 @@
+package cn.via;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.RandomAccess;
+
+import cn.via.ParseOptions.NUMBER_POLICY;
+
+/**
+ * 紧凑的数组：元素全部为整数时保存在long[]中，全部为小数时保存在double[]中，否则保存在Object[]中。
+ * 使用addLong与addDouble添加的数字才会使用原始类型保存，混入其他类型的元素后自动转为Object[]。
+ * getLong与getDouble可以不装箱读取数字；get返回的装箱类型与解析时的NUMBER_POLICY一致。
+ * @author venia
+ */
+public class JsonArray extends AbstractList<Object> implements RandomAccess {
+	
+	private static final byte EMPTY = 0;
+	private static final byte LONGS = 1;
+	private static final byte DOUBLES = 2;
+	private static final byte OBJECTS = 3;
+	
+	private byte kind = EMPTY;
+	private long[] longs;
+	private double[] doubles;
+	private Object[] objects;
+	private int size;
+	
+	private final boolean longBoxing;	// 整数总是装箱为Long，否则在int范围内时装箱为Integer
+	
+	public JsonArray() {
+		this(NUMBER_POLICY.DEFAULT);
+	}
+	
+	public JsonArray(NUMBER_POLICY policy) {
+		this.longBoxing = policy == NUMBER_POLICY.LONG_DOUBLE;
+	}
+	
+	public int size() {
+		return size;
+	}
+	
+	public Object get(int i) {
+		check(i);
+		switch(kind) {
+		case LONGS:		return box(longs[i]);
+		case DOUBLES:	return Double.valueOf(doubles[i]);
+		default:		return objects[i];
+		}
+	}
+	
+	public long getLong(int i) {
+		check(i);
+		switch(kind) {
+		case LONGS:		return longs[i];
+		case DOUBLES:	return (long) doubles[i];
+		default:		return ((Number) objects[i]).longValue();
+		}
+	}
+	
+	public double getDouble(int i) {
+		check(i);
+		switch(kind) {
+		case LONGS:		return longs[i];
+		case DOUBLES:	return doubles[i];
+		default:		return ((Number) objects[i]).doubleValue();
+		}
+	}
+	
+	// 是否所有元素都是以long保存的整数，空数组返回false
+	public boolean isLongArray() {
+		return kind == LONGS;
+	}
+	
+	public boolean isDoubleArray() {
+		return kind == DOUBLES;
+	}
+	
+	// 复制出所有元素，元素必须都是数字
+	public long[] toLongArray() {
+		if(kind == LONGS) return Arrays.copyOf(longs, size);
+		
+		long[] a = new long[size];
+		for(int i = 0; i < size; i++) a[i] = getLong(i);
+		return a;
+	}
+	
+	public double[] toDoubleArray() {
+		if(kind == DOUBLES) return Arrays.copyOf(doubles, size);
+		
+		double[] a = new double[size];
+		for(int i = 0; i < size; i++) a[i] = getDouble(i);
+		return a;
+	}
+	
+	public void addLong(long value) {
+		if(kind == EMPTY) {
+			kind = LONGS;
+			longs = new long[8];
+		}
+		if(kind != LONGS) {
+			add(box(value));
+			return;
+		}
+		
+		if(size == longs.length) longs = Arrays.copyOf(longs, size * 2);
+		longs[size++] = value;
+		modCount++;
+	}
+	
+	public void addDouble(double value) {
+		if(kind == EMPTY) {
+			kind = DOUBLES;
+			doubles = new double[8];
+		}
+		if(kind != DOUBLES) {
+			add(Double.valueOf(value));
+			return;
+		}
+		
+		if(size == doubles.length) doubles = Arrays.copyOf(doubles, size * 2);
+		doubles[size++] = value;
+		modCount++;
+	}
+	
+	public boolean add(Object value) {
+		toObjects(size + 1);
+		objects[size++] = value;
+		modCount++;
+		return true;
+	}
+	
+	public void add(int i, Object value) {
+		if(i < 0 || i > size) throw new IndexOutOfBoundsException(String.valueOf(i));
+		
+		toObjects(size + 1);
+		System.arraycopy(objects, i, objects, i + 1, size - i);
+		objects[i] = value;
+		size++;
+		modCount++;
+	}
+	
+	public Object set(int i, Object value) {
+		check(i);
+		
+		toObjects(size);
+		Object old = objects[i];
+		objects[i] = value;
+		return old;
+	}
+	
+	public Object remove(int i) {
+		check(i);
+		
+		toObjects(size);
+		Object old = objects[i];
+		System.arraycopy(objects, i + 1, objects, i, size - i - 1);
+		objects[--size] = null;
+		modCount++;
+		return old;
+	}
+	
+	public void clear() {
+		kind = EMPTY;
+		longs = null;
+		doubles = null;
+		objects = null;
+		size = 0;
+		modCount++;
+	}
+	
+	// 转为Object[]保存，并保证容量
+	private void toObjects(int capacity) {
+		if(kind != OBJECTS) {
+			Object[] a = new Object[Math.max(capacity, 8)];
+			for(int i = 0; i < size; i++) a[i] = get(i);
+			
+			kind = OBJECTS;
+			objects = a;
+			longs = null;
+			doubles = null;
+		}
+		else if(capacity > objects.length) {
+			objects = Arrays.copyOf(objects, Math.max(capacity, objects.length * 2));
+		}
+	}
+	
+	private Object box(long value) {
+		if(!longBoxing && value >= Integer.MIN_VALUE && value <= Integer.MAX_VALUE) {
+			return Integer.valueOf((int) value);
+		}
+		return Long.valueOf(value);
+	}
+	
+	private void check(int i) {
+		if(i < 0 || i >= size) throw new IndexOutOfBoundsException(String.valueOf(i));
+	}
+}
@@ -0,0 +1,136 @@
+package cn.via;
+
+import java.nio.ByteBuffer;
+
+import cn.via.JsonReader.EVENT;
+import cn.via.ParseOptions.TREE_MODEL;
+
+/**
+ * 增量解析器：UTF-8数据可以按任意的片段送入，例如非阻塞IO每次读到的数据，片段可以从多字节字符或者token的中间断开。
+ * 每次feed都尽可能地向前解析，数据不足时返回NEED_MORE_INPUT。状态机的状态、嵌套关系与未读完的token都保留下来，
+ * 下次feed时从断开的地方继续，不需要缓存整个消息，也不会阻塞，可以直接在事件循环线程中使用。
+ * 已经解析过的数据会被丢弃，缓冲区中只保留未读完的token。
+ * 传入JsonHandler时把事件回调给handler，否则按照ParseOptions中的TREE_MODEL构建Map/List（LAZY按HASH_MAP处理）。
+ * 一个文档解析完之后返回DONE，调用reset可以继续解析同一输入中紧跟着的下一个文档。不是线程安全的。
+ * @author venia
+ */
+public class JsonFeedParser {
+	
+	public static enum STATUS {
+		NEED_MORE_INPUT,	// 数据不足，等待更多的输入
+		DONE				// 一个文档解析完成
+	}
+	
+	private final ByteTokenizer tkz = new ByteTokenizer();
+	private final ParseOptions options;
+	private final JsonHandler target;		// 用户的handler，为null时构建Map/List
+	
+	private JsonReader reader;				// 每个文档一个，状态机与嵌套关系都保存在其中
+	private JsonHandler handler;
+	private TinyJsonParser.Context context;
+	private CompactBuilder builder;
+	private boolean done;
+	
+	public JsonFeedParser() {
+		this(null, new ParseOptions());
+	}
+	
+	public JsonFeedParser(ParseOptions options) {
+		this(null, options);
+	}
+	
+	public JsonFeedParser(JsonHandler handler) {
+		this(handler, new ParseOptions());
+	}
+	
+	public JsonFeedParser(JsonHandler handler, ParseOptions options) {
+		if(options == null) throw new NullPointerException();
+		
+		this.options = options;
+		this.target = handler;
+		start();
+	}
+	
+	public STATUS feed(byte[] chunk) {
+		return feed(ByteBuffer.wrap(chunk));
+	}
+	
+	public STATUS feed(byte[] chunk, int offset, int length) {
+		return feed(ByteBuffer.wrap(chunk, offset, length));
+	}
+	
+	// 送入 chunk 的 position 到 limit 之间的数据，chunk 会被读完；文档已经解析完成时只保存数据，直到reset
+	public STATUS feed(ByteBuffer chunk) {
+		tkz.feed(chunk);
+		return advance();
+	}
+	
+	// 输入已经结束，文档没有结束时抛出异常；没有任何数据时返回DONE，结果为null
+	public STATUS end() {
+		tkz.end();
+		return advance();
+	}
+	
+	// 开始解析下一个文档，已经送入但未解析的数据会立即解析
+	public STATUS reset() {
+		start();
+		return advance();
+	}
+	
+	public boolean isDone() {
+		return done;
+	}
+	
+	// 解析完成的Map/List，传入了handler时总是返回null
+	public Object getResult() {
+		if(!done) throw new IllegalStateException("The document is not finished!");
+		
+		if(context != null) return context.getRoot();
+		if(builder != null) return builder.getRoot();
+		return null;
+	}
+	
+	// 当前文档的嵌套深度
+	public int getDepth() {
+		return reader.getDepth();
+	}
+	
+	private void start() {
+		reader = new JsonReader(tkz, options);
+		context = null;
+		builder = null;
+		done = false;
+		
+		if(target != null) {
+			handler = target;
+		}
+		else if(options.getTreeModel() == TREE_MODEL.COMPACT) {
+			handler = builder = new CompactBuilder(options.getNumberPolicy());
+		}
+		else {
+			handler = context = new TinyJsonParser.Context(reader);
+		}
+	}
+	
+	// 读取事件直到数据不足或者文档结束
+	private STATUS advance() {
+		if(done) return STATUS.DONE;
+		
+		EVENT e = null;
+		while ((e = reader.next()) != EVENT.NEED_MORE_INPUT) {
+			if (e == EVENT.END_DOCUMENT) {
+				done = true;
+				return STATUS.DONE;
+			}
+			
+			TinyJsonParser.dispatch(e, reader, handler);
+			
+			if ((e == EVENT.END_OBJECT || e == EVENT.END_ARRAY) && reader.getDepth() == 0) {
+				tkz.swallow(tkz.peek()); // 吃掉根结点的右括号，之后的数据属于下一个文档
+				done = true;
+				return STATUS.DONE;
+			}
+		}
+		return STATUS.NEED_MORE_INPUT;
+	}
+}
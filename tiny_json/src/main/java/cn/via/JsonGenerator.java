@@ -0,0 +1,370 @@
+package cn.via;
+
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.util.Arrays;
+
+/**
+ * 流式输出JSON，不需要先构建Map/List。可以输出到Appendable、OutputStream、ByteBuffer或WritableByteChannel，
+ * 字节输出都按UTF-8编码。所有内容先写入一个可重用的字符缓冲区，满了或者调用flush时才交给目标。
+ * 数字与布尔值有原始类型的重载，不需要装箱；字符串按JSON规范转义。
+ * 会检查调用顺序，例如对象中必须先写成员名，结束时必须与开始的类型一致，错误时抛出IllegalStateException。
+ * 一个根值写完之后可以继续写下一个根值，之间以换行分隔，这样同一个实例可以反复使用。
+ * 输出到ByteBuffer时空间不足会抛出BufferOverflowException。不是线程安全的。
+ * @author venia
+ */
+public class JsonGenerator implements Flushable {
+	
+	private static final char[] HEX = "0123456789abcdef".toCharArray();
+	private static final int BUFFER_SIZE = 4096;
+	
+	private static final byte OBJECT = 1;
+	private static final byte ARRAY = 2;
+	
+	private final Appendable appendable;	// 输出目标只有一个不为null
+	private final OutputStream stream;
+	private final ByteBuffer bytes;
+	private final WritableByteChannel channel;
+	
+	private final char[] buf = new char[BUFFER_SIZE];
+	private int count;
+	private byte[] encoded;				// UTF-8编码的临时空间
+	private ByteBuffer encodedBuffer;	// encoded的包装，输出到channel时使用
+	
+	private String indent;		// 缩进，为null时输出紧凑格式
+	private byte[] stack = new byte[32];	// 嵌套的容器类型
+	private int[] sizes = new int[32];		// 每一层已经写入的成员或元素个数
+	private int depth;
+	private boolean named;		// 对象中已经写了成员名，等待成员值
+	private int roots;			// 已经写入的根值个数
+	
+	public JsonGenerator(Appendable out) {
+		this(out, null, null, null);
+	}
+	
+	public JsonGenerator(OutputStream out) {
+		this(null, out, null, null);
+	}
+	
+	// 写入out的position处，可以反复clear之后重用
+	public JsonGenerator(ByteBuffer out) {
+		this(null, null, out, null);
+	}
+	
+	// 缓冲区满了或者调用flush时写入channel
+	public JsonGenerator(WritableByteChannel out) {
+		this(null, null, null, out);
+	}
+	
+	private JsonGenerator(Appendable appendable, OutputStream stream, ByteBuffer bytes, WritableByteChannel channel) {
+		if(appendable == null && stream == null && bytes == null && channel == null) throw new NullPointerException();
+		
+		this.appendable = appendable;
+		this.stream = stream;
+		this.bytes = bytes;
+		this.channel = channel;
+	}
+	
+	// 设置缩进，例如"\t"或"  "，为null时输出紧凑格式（默认）
+	public JsonGenerator setIndent(String indent) {
+		this.indent = indent == null || indent.isEmpty() ? null : indent;
+		return this;
+	}
+	
+	public JsonGenerator writeStartObject() throws IOException {
+		return open(OBJECT, '{');
+	}
+	
+	public JsonGenerator writeEndObject() throws IOException {
+		return close(OBJECT, '}');
+	}
+	
+	public JsonGenerator writeStartArray() throws IOException {
+		return open(ARRAY, '[');
+	}
+	
+	public JsonGenerator writeEndArray() throws IOException {
+		return close(ARRAY, ']');
+	}
+	
+	public JsonGenerator writeFieldName(CharSequence name) throws IOException {
+		if(depth == 0 || stack[depth - 1] != OBJECT || named) {
+			throw new IllegalStateException("A field name is not expected here!");
+		}
+		
+		separate();
+		string(name);
+		append(':');
+		if(indent != null) append(' ');
+		named = true;
+		return this;
+	}
+	
+	public JsonGenerator writeString(CharSequence value) throws IOException {
+		if(value == null) return writeNull();
+		
+		beforeValue();
+		string(value);
+		return this;
+	}
+	
+	public JsonGenerator writeNumber(long value) throws IOException {
+		beforeValue();
+		writeLong(value);
+		return this;
+	}
+	
+	public JsonGenerator writeNumber(double value) throws IOException {
+		if(Double.isNaN(value) || Double.isInfinite(value)) throw new IllegalArgumentException("NaN or Infinity is not allowed in JSON!");
+		
+		beforeValue();
+		raw(Double.toString(value));
+		return this;
+	}
+	
+	// Integer、Long等按整数输出，Float、Double不能是NaN或无穷，BigDecimal等按toString输出
+	public JsonGenerator writeNumber(Number value) throws IOException {
+		if(value == null) return writeNull();
+		
+		if(value instanceof Integer || value instanceof Long || value instanceof Short || value instanceof Byte) {
+			return writeNumber(value.longValue());
+		}
+		if(value instanceof Double || value instanceof Float) {
+			double d = value.doubleValue();
+			if(Double.isNaN(d) || Double.isInfinite(d)) throw new IllegalArgumentException("NaN or Infinity is not allowed in JSON!");
+		}
+		
+		beforeValue();
+		raw(value.toString());
+		return this;
+	}
+	
+	public JsonGenerator writeBoolean(boolean value) throws IOException {
+		beforeValue();
+		raw(value ? "true" : "false");
+		return this;
+	}
+	
+	public JsonGenerator writeNull() throws IOException {
+		beforeValue();
+		raw("null");
+		return this;
+	}
+	
+	// 当前嵌套层数
+	public int getDepth() {
+		return depth;
+	}
+	
+	private JsonGenerator open(byte kind, char c) throws IOException {
+		beforeValue();
+		if(depth == stack.length) {
+			stack = Arrays.copyOf(stack, depth * 2);
+			sizes = Arrays.copyOf(sizes, depth * 2);
+		}
+		stack[depth] = kind;
+		sizes[depth++] = 0;
+		append(c);
+		return this;
+	}
+	
+	private JsonGenerator close(byte kind, char c) throws IOException {
+		if(depth == 0 || stack[depth - 1] != kind || named) {
+			throw new IllegalStateException("Unexpected end of " + (kind == OBJECT ? "object" : "array") + "!");
+		}
+		
+		depth--;
+		if(indent != null && sizes[depth] > 0) newLine();
+		append(c);
+		return this;
+	}
+	
+	// 写值之前检查位置，并写入需要的逗号与缩进
+	private void beforeValue() throws IOException {
+		if(depth == 0) {
+			if(roots++ > 0) append('\n');
+		}
+		else if(stack[depth - 1] == ARRAY) {
+			separate();
+		}
+		else if(named) {
+			named = false;
+		}
+		else {
+			throw new IllegalStateException("Expected a field name!");
+		}
+	}
+	
+	private void separate() throws IOException {
+		if(sizes[depth - 1]++ > 0) append(',');
+		if(indent != null) newLine();
+	}
+	
+	private void newLine() throws IOException {
+		append('\n');
+		for(int i = 0; i < depth; i++) raw(indent);
+	}
+	
+	// 直接把数字写入缓冲区，不生成字符串
+	private void writeLong(long v) throws IOException {
+		if(v == Long.MIN_VALUE) {
+			raw("-9223372036854775808");
+			return;
+		}
+		if(count + 20 > buf.length) flushBuffer();
+		
+		if(v < 0) {
+			buf[count++] = '-';
+			v = -v;
+		}
+		int end = count + digits(v);
+		for(int i = end - 1; i >= count; i--) {
+			buf[i] = (char) ('0' + v % 10);
+			v /= 10;
+		}
+		count = end;
+	}
+	
+	private static int digits(long v) {
+		int n = 1;
+		while(v >= 10) {
+			v /= 10;
+			n++;
+		}
+		return n;
+	}
+	
+	// 带引号并转义的字符串，不需要转义的部分整段复制
+	private void string(CharSequence s) throws IOException {
+		append('"');
+		int n = s.length();
+		int from = 0;
+		for(int i = 0; i < n; i++) {
+			char c = s.charAt(i);
+			if(c >= 0x20 && c != '"' && c != '\\') continue;
+			
+			raw(s, from, i);
+			from = i + 1;
+			switch(c) {
+			case '"':	raw("\\\""); break;
+			case '\\':	raw("\\\\"); break;
+			case '\b':	raw("\\b"); break;
+			case '\f':	raw("\\f"); break;
+			case '\n':	raw("\\n"); break;
+			case '\r':	raw("\\r"); break;
+			case '\t':	raw("\\t"); break;
+			default:
+				raw("\\u00");
+				append(HEX[c >> 4]);
+				append(HEX[c & 0xF]);
+			}
+		}
+		raw(s, from, n);
+		append('"');
+	}
+	
+	private void raw(CharSequence s) throws IOException {
+		raw(s, 0, s.length());
+	}
+	
+	private void raw(CharSequence s, int start, int end) throws IOException {
+		while(start < end) {
+			if(count == buf.length) flushBuffer();
+			
+			int n = Math.min(end - start, buf.length - count);
+			if(s instanceof String) {
+				((String) s).getChars(start, start + n, buf, count);
+			}
+			else {
+				for(int i = 0; i < n; i++) buf[count + i] = s.charAt(start + i);
+			}
+			count += n;
+			start += n;
+		}
+	}
+	
+	private void append(char c) throws IOException {
+		if(count == buf.length) flushBuffer();
+		buf[count++] = c;
+	}
+	
+	// 把缓冲区交给输出目标；编码为UTF-8时不拆开代理对，末尾的高代理留到下一次
+	private void flushBuffer() throws IOException {
+		if(appendable != null) {
+			if(appendable instanceof StringBuilder) ((StringBuilder) appendable).append(buf, 0, count);
+			else if(appendable instanceof Writer) ((Writer) appendable).write(buf, 0, count);
+			else appendable.append(CharBuffer.wrap(buf, 0, count));
+			count = 0;
+			return;
+		}
+		
+		int n = count;
+		if(n > 0 && Character.isHighSurrogate(buf[n - 1])) n--;
+		encode(n);
+		if(n < count) buf[0] = buf[n];
+		count -= n;
+	}
+	
+	private void encode(int n) throws IOException {
+		if(encoded == null) {
+			encoded = new byte[BUFFER_SIZE * 3];
+			encodedBuffer = ByteBuffer.wrap(encoded);
+		}
+		
+		byte[] b = encoded;
+		int j = 0;
+		for(int i = 0; i < n; i++) {
+			char c = buf[i];
+			if(c < 0x80) {
+				b[j++] = (byte) c;
+			}
+			else if(c < 0x800) {
+				b[j++] = (byte) (0xC0 | c >> 6);
+				b[j++] = (byte) (0x80 | c & 0x3F);
+			}
+			else if(Character.isHighSurrogate(c) && i + 1 < n && Character.isLowSurrogate(buf[i + 1])) {
+				int cp = Character.toCodePoint(c, buf[++i]);
+				b[j++] = (byte) (0xF0 | cp >> 18);
+				b[j++] = (byte) (0x80 | cp >> 12 & 0x3F);
+				b[j++] = (byte) (0x80 | cp >> 6 & 0x3F);
+				b[j++] = (byte) (0x80 | cp & 0x3F);
+			}
+			else if(Character.isSurrogate(c)) { // 不成对的代理，与String.getBytes一样替换为?
+				b[j++] = '?';
+			}
+			else {
+				b[j++] = (byte) (0xE0 | c >> 12);
+				b[j++] = (byte) (0x80 | c >> 6 & 0x3F);
+				b[j++] = (byte) (0x80 | c & 0x3F);
+			}
+		}
+		
+		if(stream != null) {
+			stream.write(b, 0, j);
+		}
+		else if(bytes != null) {
+			bytes.put(b, 0, j);
+		}
+		else {
+			encodedBuffer.clear().limit(j);
+			while(encodedBuffer.hasRemaining()) channel.write(encodedBuffer);
+		}
+	}
+	
+	// 输出缓冲区中的所有内容，目标也是Flushable时一并flush
+	public void flush() throws IOException {
+		flushBuffer();
+		if(count > 0) { // 末尾是单独的高代理
+			encode(count);
+			count = 0;
+		}
+		
+		if(stream != null) stream.flush();
+		else if(appendable instanceof Flushable) ((Flushable) appendable).flush();
+	}
+}
@@ -0,0 +1,53 @@
+package cn.via;
+
+/**
+ * 推模式的回调接口，由TinyJsonParser.parse(source, handler)在解析过程中调用。
+ * 所有方法默认什么都不做，只需要实现关心的回调即可。构建Map/List也只是其中一种实现。
+ * @author venia
+ */
+public interface JsonHandler {
+	
+	default void startObject() {
+	}
+	
+	default void endObject() {
+	}
+	
+	default void startArray() {
+	}
+	
+	default void endArray() {
+	}
+	
+	// 对象成员的名字，之后紧跟着该成员的值
+	default void key(String name) {
+	}
+	
+	default void value(CharSequence value) {
+	}
+	
+	// long范围以外的整数，以及NUMBER_POLICY为BIG_DECIMAL或LEGACY时的小数
+	default void value(Number value) {
+	}
+	
+	// long范围内的整数，默认在int范围内时装箱为Integer，否则为Long，再调用value(Number)。默认实现不考虑NUMBER_POLICY
+	default void value(long value) {
+		if (value >= Integer.MIN_VALUE && value <= Integer.MAX_VALUE) {
+			value((Number) Integer.valueOf((int) value));
+		}
+		else {
+			value((Number) Long.valueOf(value));
+		}
+	}
+	
+	// 小数，默认装箱为Double再调用value(Number)
+	default void value(double value) {
+		value((Number) Double.valueOf(value));
+	}
+	
+	default void value(boolean value) {
+	}
+	
+	default void nullValue() {
+	}
+}
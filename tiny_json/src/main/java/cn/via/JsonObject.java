@@ -0,0 +1,223 @@
+package cn.via;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * 紧凑的对象：键和值分别保存在两个数组中，保持插入顺序。
+ * 成员较少时直接顺序查找，超过LINEAR_LIMIT个成员后才建立哈希索引。
+ * 与HashMap相比，每个成员不需要额外的Entry对象。
+ * @author venia
+ */
+public class JsonObject extends AbstractMap<String, Object> {
+	
+	private static final int LINEAR_LIMIT = 8;
+	
+	private String[] keys;
+	private Object[] values;
+	private int size;
+	
+	private int[] index;	// 开放寻址的哈希索引，保存下标+1，0表示空；成员较少时为null
+	
+	public JsonObject() {
+		this(4);
+	}
+	
+	public JsonObject(int capacity) {
+		this.keys = new String[Math.max(capacity, 1)];
+		this.values = new Object[keys.length];
+	}
+	
+	public int size() {
+		return size;
+	}
+	
+	public Object get(Object key) {
+		int i = indexOf(key);
+		return i < 0 ? null : values[i];
+	}
+	
+	public boolean containsKey(Object key) {
+		return indexOf(key) >= 0;
+	}
+	
+	public Object put(String key, Object value) {
+		if(key == null) throw new NullPointerException();
+		
+		int i = indexOf(key);
+		if(i >= 0) {
+			Object old = values[i];
+			values[i] = value;
+			return old;
+		}
+		
+		if(size == keys.length) {
+			keys = Arrays.copyOf(keys, size * 2);
+			values = Arrays.copyOf(values, size * 2);
+		}
+		keys[size] = key;
+		values[size] = value;
+		size++;
+		
+		if(index != null && size * 2 <= index.length) {
+			insert(index, size - 1);
+		}
+		else if(size > LINEAR_LIMIT) {
+			rebuildIndex();
+		}
+		return null;
+	}
+	
+	public Object remove(Object key) {
+		int i = indexOf(key);
+		if(i < 0) return null;
+		
+		Object old = values[i];
+		removeAt(i);
+		return old;
+	}
+	
+	public void clear() {
+		Arrays.fill(keys, 0, size, null);
+		Arrays.fill(values, 0, size, null);
+		size = 0;
+		index = null;
+	}
+	
+	// 第i个成员的名字，按插入顺序
+	public String getKey(int i) {
+		if(i >= size) throw new IndexOutOfBoundsException(String.valueOf(i));
+		return keys[i];
+	}
+	
+	// 第i个成员的值，按插入顺序
+	public Object getValue(int i) {
+		if(i >= size) throw new IndexOutOfBoundsException(String.valueOf(i));
+		return values[i];
+	}
+	
+	private int indexOf(Object key) {
+		if(key == null) return -1;
+		
+		if(index == null) {
+			for(int i = 0; i < size; i++) {
+				if(key.equals(keys[i])) return i;
+			}
+			return -1;
+		}
+		
+		int mask = index.length - 1;
+		for(int h = mix(key.hashCode()) & mask; index[h] != 0; h = (h + 1) & mask) {
+			int i = index[h] - 1;
+			if(key.equals(keys[i])) return i;
+		}
+		return -1;
+	}
+	
+	private void removeAt(int i) {
+		System.arraycopy(keys, i + 1, keys, i, size - i - 1);
+		System.arraycopy(values, i + 1, values, i, size - i - 1);
+		size--;
+		keys[size] = null;
+		values[size] = null;
+		
+		if(index != null) {
+			if(size > LINEAR_LIMIT) rebuildIndex();
+			else index = null;
+		}
+	}
+	
+	private void rebuildIndex() {
+		int n = Integer.highestOneBit(size) << 2;
+		index = new int[n];
+		for(int i = 0; i < size; i++) {
+			insert(index, i);
+		}
+	}
+	
+	private void insert(int[] idx, int i) {
+		int mask = idx.length - 1;
+		int h = mix(keys[i].hashCode()) & mask;
+		while(idx[h] != 0) {
+			h = (h + 1) & mask;
+		}
+		idx[h] = i + 1;
+	}
+	
+	private static int mix(int h) {
+		return h ^ (h >>> 16);
+	}
+	
+	public Set<Entry<String, Object>> entrySet() {
+		return new AbstractSet<Entry<String, Object>>() {
+			public int size() {
+				return size;
+			}
+			
+			public Iterator<Entry<String, Object>> iterator() {
+				return new Iterator<Entry<String, Object>>() {
+					private int next = 0;
+					private int last = -1;
+					
+					public boolean hasNext() {
+						return next < size;
+					}
+					
+					public Entry<String, Object> next() {
+						if(next >= size) throw new NoSuchElementException();
+						last = next++;
+						return new Member(last);
+					}
+					
+					public void remove() {
+						if(last < 0) throw new IllegalStateException();
+						removeAt(last);
+						next = last;
+						last = -1;
+					}
+				};
+			}
+		};
+	}
+	
+	// 遍历时使用的成员视图，setValue会直接修改对象
+	private final class Member implements Entry<String, Object> {
+		private final int i;
+		
+		Member(int i) {
+			this.i = i;
+		}
+		
+		public String getKey() {
+			return keys[i];
+		}
+		
+		public Object getValue() {
+			return values[i];
+		}
+		
+		public Object setValue(Object value) {
+			Object old = values[i];
+			values[i] = value;
+			return old;
+		}
+		
+		public boolean equals(Object o) {
+			if(!(o instanceof Entry)) return false;
+			Entry<?, ?> e = (Entry<?, ?>) o;
+			return keys[i].equals(e.getKey()) && (values[i] == null ? e.getValue() == null : values[i].equals(e.getValue()));
+		}
+		
+		public int hashCode() {
+			return keys[i].hashCode() ^ (values[i] == null ? 0 : values[i].hashCode());
+		}
+		
+		public String toString() {
+			return keys[i] + "=" + values[i];
+		}
+	}
+}
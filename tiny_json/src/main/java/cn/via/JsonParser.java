@@ -0,0 +1,130 @@
+package cn.via;
+
+import java.nio.ByteBuffer;
+
+import cn.via.ParseOptions.TREE_MODEL;
+
+/**
+ * 可以重复使用的解析器。词法分析器、状态机的嵌套栈、构建Map/List的上下文以及字符缓冲区都在多次解析之间复用，
+ * 稳定之后解析小消息时只分配结果本身。
+ * 不是线程安全的，多线程时每个线程使用自己的实例，也可以通过JsonParser.local()获取线程本地的实例。
+ * 设置了lazyStrings时结果会引用源数据，这时字符串输入每次都复制到新的数组中；TREE_MODEL.LAZY直接交给TinyJsonParser。
+ * @author venia
+ */
+public class JsonParser {
+	
+	private static final ThreadLocal<JsonParser> LOCAL = ThreadLocal.withInitial(JsonParser::new);
+	
+	private static final int MAX_RETAINED = 1 << 16;	// 更长的字符串不放入复用的缓冲区，避免一直占用大块内存
+	private static final char[] NO_CHARS = new char[0];
+	private static final ByteBuffer NO_BYTES = ByteBuffer.allocate(0);
+	
+	private final ParseOptions options;
+	private final JsonReader reader;
+	private final Tokenizer chars = new Tokenizer(NO_CHARS);
+	private final ByteTokenizer bytes = new ByteTokenizer(NO_BYTES);
+	private final TinyJsonParser.Context context;
+	private final CompactBuilder builder;
+	
+	private char[] buf = new char[256];	// 字符串输入复制到这里
+	
+	public JsonParser() {
+		this(new ParseOptions());
+	}
+	
+	public JsonParser(ParseOptions options) {
+		if(options == null) throw new NullPointerException();
+		
+		this.options = options;
+		this.reader = new JsonReader(chars, options);
+		this.context = new TinyJsonParser.Context(reader);
+		this.builder = new CompactBuilder(options.getNumberPolicy());
+	}
+	
+	// 当前线程的实例，使用默认的选项
+	public static JsonParser local() {
+		return LOCAL.get();
+	}
+	
+	public ParseOptions getOptions() {
+		return options;
+	}
+	
+	public Object parse(String source) {
+		if (options.getTreeModel() == TREE_MODEL.LAZY) {
+			return TinyJsonParser.parse(source, options);
+		}
+		return build(load(source));
+	}
+	
+	public Object parse(byte[] source) {
+		return parse(source, 0, source.length);
+	}
+	
+	public Object parse(byte[] source, int offset, int length) {
+		if (options.getTreeModel() == TREE_MODEL.LAZY) {
+			return TinyJsonParser.parse(ByteBuffer.wrap(source, offset, length), options);
+		}
+		bytes.reset(ByteBuffer.wrap(source, offset, length));
+		return build(bytes);
+	}
+	
+	// 推模式，见TinyJsonParser.parse(source, handler)
+	public void parse(String source, JsonHandler handler) {
+		dispatch(load(source), handler);
+	}
+	
+	public void parse(byte[] source, JsonHandler handler) {
+		bytes.reset(ByteBuffer.wrap(source));
+		dispatch(bytes, handler);
+	}
+	
+	// 把字符串复制到复用的缓冲区中，长字符串按块读取
+	private Lexer load(String source) {
+		int n = source.length();
+		if (options.isLazyStrings()) {
+			chars.reset(source.toCharArray(), 0, n);
+			return chars;
+		}
+		if (n > MAX_RETAINED) {
+			return new Tokenizer(source);
+		}
+		
+		if (buf.length < n) {
+			buf = new char[Math.max(n, buf.length * 2)];
+		}
+		source.getChars(0, n, buf, 0);
+		chars.reset(buf, 0, n);
+		return chars;
+	}
+	
+	private Object build(Lexer lexer) {
+		if (options.getTreeModel() == TREE_MODEL.COMPACT) {
+			try {
+				builder.setPolicy(options.getNumberPolicy());
+				dispatch(lexer, builder);
+				return builder.getRoot();
+			} finally {
+				builder.reset();
+			}
+		}
+		
+		try {
+			dispatch(lexer, context);
+			return context.getRoot();
+		} finally {
+			context.reset();
+		}
+	}
+	
+	private void dispatch(Lexer lexer, JsonHandler handler) {
+		try {
+			reader.reset(lexer);
+			TinyJsonParser.parse(reader, handler);
+		} finally { // 不再引用源数据
+			reader.reset(chars);
+			chars.reset(NO_CHARS, 0, 0);
+			bytes.reset(NO_BYTES);
+		}
+	}
+}
@@ -0,0 +1,422 @@
+package cn.via;
+
+import java.io.InputStream;
+import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+import cn.via.Tokenizer.TAG;
+
+/**
+ * 拉模式的解析器，每次调用next返回一个事件，不会构建任何Map/List。
+ * 状态机与原来TinyJsonParser中的状态机一致，TinyJsonParser.parse也是基于它来构建结果的。
+ * @author venia
+ */
+public class JsonReader {
+	
+	public static enum EVENT {
+		START_OBJECT, END_OBJECT,		// { }
+		START_ARRAY, END_ARRAY,			// [ ]
+		FIELD_NAME,						// 对象成员的名字
+		VALUE_STRING, VALUE_NUMBER,
+		VALUE_TRUE, VALUE_FALSE, VALUE_NULL,
+		END_DOCUMENT,
+		NEED_MORE_INPUT					// 增量解析时数据不足，送入更多数据后再调用next
+	}
+	
+	private static enum STATE {
+		BEGIN, END,
+		ARR_BEGIN, ARR_VALUE, ARR_VALUE_SEP, ARR_END,					// ARR is shorter for array, SEP is shorter for separator
+		OBJ_BEGIN, MEM_NAME, MEM_NAME_SEP, MEM_VALUE, MEM_SEP, OBJ_END  // OBJ is shorter for object, MEM is shorter for member
+	}
+	
+	private static final byte OBJECT = 1;
+	private static final byte ARRAY = 2;
+	
+	private Lexer tkz;
+	private final ParseOptions options;
+	private STATE state;
+	
+	private byte[] stack;	// 嵌套关系，只记录容器的类型
+	private int depth;
+	private int outer;		// 只解析文档中的一个片段时，片段外层已有的嵌套层数，同样计入maxDepth
+	
+	private boolean quiet;	// 出错时不打印环境，JsonValidator使用
+	
+	private TAG pending;	// 当前事件对应的token，下一次调用next时才吃掉，这样getString时token依然有效
+	private EVENT event;
+	
+	private int skipTarget = -1;	// skipChildren因数据不足中断时要回到的深度，没有中断的跳过时为-1
+	
+	public JsonReader(String source) {
+		this(new Tokenizer(source));
+	}
+	
+	public JsonReader(Reader reader) {
+		this(new Tokenizer(reader));
+	}
+	
+	public JsonReader(InputStream in) {
+		this(new Tokenizer(in));
+	}
+	
+	public JsonReader(byte[] source) {
+		this(new ByteTokenizer(source));
+	}
+	
+	public JsonReader(ByteBuffer source) {
+		this(new ByteTokenizer(source));
+	}
+	
+	public JsonReader(Lexer tkz) {
+		this(tkz, new ParseOptions());
+	}
+	
+	public JsonReader(Lexer tkz, ParseOptions options) {
+		if(tkz == null || options == null) throw new NullPointerException();
+		
+		this.tkz = tkz;
+		this.options = options;
+		this.state = STATE.BEGIN;
+		this.stack = new byte[32];
+		this.depth = 0;
+	}
+	
+	// 改为读取tkz，回到初始状态，嵌套栈保留已经扩展的容量
+	void reset(Lexer tkz) {
+		this.tkz = tkz;
+		this.state = STATE.BEGIN;
+		this.depth = 0;
+		this.pending = null;
+		this.event = null;
+		this.skipTarget = -1;
+	}
+	
+	// 片段位于outer层容器之中，供ParallelArrayParser解析根数组的元素时使用
+	void setOuterDepth(int outer) {
+		this.outer = outer;
+	}
+	
+	// 出错时不打印环境，供JsonValidator使用
+	void setQuiet(boolean quiet) {
+		this.quiet = quiet;
+	}
+	
+	// 读取下一个事件，逗号与冒号不产生事件
+	public EVENT next() {
+		skipTarget = -1; // 直接调用next时放弃中断的跳过
+		if (pending != null) {
+			tkz.swallow(pending);
+			pending = null;
+		}
+		
+		TAG tag = null;
+		while ((tag = tkz.peek()) != TAG.EOF) {
+			if (tag == TAG.INCOMPLETE) { // 状态不变，送入更多数据后从这里继续
+				return event = EVENT.NEED_MORE_INPUT;
+			}
+			
+			EVENT e = null;
+			
+			switch (state) {
+			case BEGIN:
+				if (tag == TAG.L_BRACE) {
+					e = open(OBJECT, STATE.OBJ_BEGIN);
+				}
+				else if (tag == TAG.L_BRACKET) {
+					e = open(ARRAY, STATE.ARR_BEGIN);
+				}
+				else {
+					throw error("Expected a '{' or '[' at row:");
+				}
+				break;
+			
+			
+			case END: // do nothing
+				break;
+			
+			
+			case ARR_BEGIN:
+				if (tag == TAG.R_BRACKET) {
+					e = close(ARRAY);
+				}
+				else if ((e = value(tag, STATE.ARR_VALUE)) == null) {
+					throw error("Expect a string or a number or a object at row:");
+				}
+				break;
+			
+			
+			case ARR_VALUE:
+				if (tag == TAG.COMMA) {
+					state = STATE.ARR_VALUE_SEP;
+				}
+				else if (tag == TAG.R_BRACKET) {
+					e = close(ARRAY);
+				} else {
+					throw error("Expect a \",\" or a \"]\" or a object at row:");
+				}
+				break;
+			
+			
+			case ARR_VALUE_SEP:
+				if ((e = value(tag, STATE.ARR_VALUE)) == null) {
+					throw error("Expect a string or a number or a object at row:");
+				}
+				break;
+			
+			
+			case ARR_END:
+			case OBJ_END:
+				if (tag == TAG.R_BRACKET) {
+					e = close(ARRAY);
+				}
+				else if (tag == TAG.R_BRACE) {
+					e = close(OBJECT);
+				}
+				else if (tag == TAG.COMMA) {
+					if (depth == 0) {
+						throw error("Bad gramma at row:");
+					}
+					state = stack[depth - 1] == ARRAY ? STATE.ARR_VALUE_SEP : STATE.MEM_SEP;
+				}
+				else if (state == STATE.ARR_END) {
+					throw error("Expected a ']' or '}' at row:");
+				}
+				else {
+					throw error("Bad gramma at at row:");
+				}
+				break;
+			
+			
+			case OBJ_BEGIN:
+				if (tag == TAG.STRING) {
+					e = EVENT.FIELD_NAME;
+					state = STATE.MEM_NAME;
+				}
+				else if (tag == TAG.R_BRACE) {
+					e = close(OBJECT);
+				}
+				else {
+					throw error("Expected a \"string\" at row:");
+				}
+				break;
+			
+			
+			case MEM_NAME:
+				if (tag == TAG.COLON) {
+					state = STATE.MEM_NAME_SEP;
+				}
+				else {
+					throw error("Expected a \":\" at at row:");
+				}
+				break;
+			
+			
+			case MEM_NAME_SEP:
+				if ((e = value(tag, STATE.MEM_VALUE)) == null) {
+					throw error("Expected a value at at row:");
+				}
+				break;
+			
+			
+			case MEM_VALUE:
+				if (tag == TAG.R_BRACE) {
+					e = close(OBJECT);
+				}
+				else if (tag == TAG.COMMA) {
+					state = STATE.MEM_SEP;
+				}
+				else {
+					throw error("Expected a \",\" or \"}\" at at row:");
+				}
+				break;
+			
+			
+			case MEM_SEP:
+				if (tag == TAG.STRING) {
+					e = EVENT.FIELD_NAME;
+					state = STATE.MEM_NAME;
+				}
+				else {
+					throw error("Expected a \"string\" at at row:");
+				}
+				break;
+			}
+			
+			if (e == null) { // 分隔符，直接吃掉继续读
+				tkz.swallow(tag);
+				continue;
+			}
+			
+			pending = tag;
+			return event = e;
+		}
+		
+		if (depth != 0) {
+			String msg = "The object or array is not closed.";
+			throw quiet ? new QuietException(msg) : new RuntimeException(msg);
+		}
+		
+		return event = EVENT.END_DOCUMENT;
+	}
+	
+	// 处理一个值：对象、数组或者基本类型，不是值时返回null
+	private EVENT value(TAG tag, STATE scalarState) {
+		switch (tag) {
+		case L_BRACE:		return open(OBJECT, STATE.OBJ_BEGIN);
+		case L_BRACKET:		return open(ARRAY, STATE.ARR_BEGIN);
+		case STRING:		state = scalarState; return EVENT.VALUE_STRING;
+		case NUMBER:		state = scalarState; return EVENT.VALUE_NUMBER;
+		case TRUE:			state = scalarState; return EVENT.VALUE_TRUE;
+		case FALSE:			state = scalarState; return EVENT.VALUE_FALSE;
+		case NULL:			state = scalarState; return EVENT.VALUE_NULL;
+		default:			return null;
+		}
+	}
+	
+	private EVENT open(byte kind, STATE s) {
+		if (depth + outer >= options.getMaxDepth()) {
+			throw error("Exceed the max depth " + options.getMaxDepth() + " at row:");
+		}
+		if (depth == stack.length) {
+			stack = Arrays.copyOf(stack, depth * 2);
+		}
+		stack[depth++] = kind;
+		state = s;
+		return kind == OBJECT ? EVENT.START_OBJECT : EVENT.START_ARRAY;
+	}
+	
+	private EVENT close(byte kind) {
+		if (depth == 0 || stack[depth - 1] != kind) {
+			throw error("Bad gramma at row:");
+		}
+		
+		depth--;
+		if (kind == OBJECT) {
+			state = STATE.OBJ_END;
+			return EVENT.END_OBJECT;
+		}
+		state = STATE.ARR_END;
+		return EVENT.END_ARRAY;
+	}
+	
+	private RuntimeException error(String msg) {
+		msg = msg + tkz.getRowCount() + ", col:" + tkz.getColCount() + ".";
+		if (quiet) return new QuietException(msg); // 只检查语法时不打印环境，异常也不记录调用栈
+		
+		tkz.printEnv(System.out);
+		return new RuntimeException(msg);
+	}
+	
+	/**
+	 * 当前事件为START_OBJECT或START_ARRAY时，跳过整个对象或数组，之后的当前事件为对应的END_OBJECT或END_ARRAY。
+	 * 跳过的部分依然会做语法检查，但是不会产生任何对象。
+	 * 增量解析时数据不足会停下，当前事件为NEED_MORE_INPUT，送入更多数据后再次调用skipChildren继续跳过。
+	 */
+	public void skipChildren() {
+		int target;
+		if (event == EVENT.NEED_MORE_INPUT && skipTarget >= 0) { // 送入更多数据后继续上次中断的跳过
+			target = skipTarget;
+		}
+		else if (event == EVENT.START_OBJECT || event == EVENT.START_ARRAY) {
+			target = depth - 1;
+		}
+		else {
+			return;
+		}
+		
+		while (depth > target) { // 输入在容器中结束时next抛出异常，不会返回END_DOCUMENT
+			if (next() == EVENT.NEED_MORE_INPUT) {
+				skipTarget = target;
+				return;
+			}
+		}
+	}
+	
+	/**
+	 * 与skipChildren相同，但是只做括号匹配，不检查其中的语法，也不扫描其中的token，速度更快。
+	 * 之后getTokenStart与getTokenEnd为整个对象或数组（含括号）在源数据中的位置。
+	 */
+	public void skipRaw() {
+		if (event != EVENT.START_OBJECT && event != EVENT.START_ARRAY) {
+			return;
+		}
+		
+		tkz.skipContainer();
+		pending = null;
+		event = close(stack[depth - 1]);
+	}
+	
+	// 当前事件，尚未调用next时为null
+	public EVENT getEvent() {
+		return event;
+	}
+	
+	// 事件为FIELD_NAME或VALUE_STRING时，获取对应的字符串；设置了符号表时，成员名从符号表中获取
+	public String getString() {
+		if (event == EVENT.FIELD_NAME && options.getSymbolTable() != null) {
+			return tkz.getToken(options.getSymbolTable());
+		}
+		return tkz.getToken();
+	}
+	
+	// 事件为FIELD_NAME或VALUE_STRING时，字符串是否与name相同，不生成String
+	public boolean matches(String name) {
+		return tkz.matches(name);
+	}
+	
+	// 与getString相同，但是启用了lazyStrings选项时返回延迟生成String的JsonString
+	public CharSequence getCharSequence() {
+		return options.isLazyStrings() ? tkz.getLazyToken() : tkz.getToken();
+	}
+	
+	public ParseOptions getOptions() {
+		return options;
+	}
+	
+	// 事件为VALUE_NUMBER时，获取数值对象，类型由ParseOptions中的NUMBER_POLICY决定
+	public Object getNumber() {
+		return tkz.getNum(options.getNumberPolicy());
+	}
+	
+	// 事件为VALUE_NUMBER时，数字是否为long范围内的整数，是的话可以使用getLong获取而不损失精度
+	public boolean isIntegral() {
+		return tkz.isIntegral();
+	}
+	
+	// 事件为VALUE_NUMBER时，数字是否带有小数点或指数
+	public boolean isDecimal() {
+		return tkz.isDecimal();
+	}
+	
+	// 事件为VALUE_NUMBER时的原始类型数值，不需要装箱。小数调用getLong时直接截断
+	public long getLong() {
+		return tkz.getLong();
+	}
+	
+	public double getDouble() {
+		return tkz.getDouble();
+	}
+	
+	// 当前事件对应的token在整个输入中的起止位置，字符串不含引号
+	public long getTokenStart() {
+		return tkz.getTokenStart();
+	}
+	
+	public long getTokenEnd() {
+		return tkz.getTokenEnd();
+	}
+	
+	// 当前所在的嵌套层数，START_OBJECT之后加一，END_OBJECT之后减一
+	public int getDepth() {
+		return depth;
+	}
+	
+	public int getRowCount() {
+		return tkz.getRowCount();
+	}
+	
+	public int getColCount() {
+		return tkz.getColCount();
+	}
+}
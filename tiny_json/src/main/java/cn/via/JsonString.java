@@ -0,0 +1,110 @@
+package cn.via;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * 延迟生成的字符串，只记录在源数据中的起止位置，第一次调用toString、equals或hashCode时才生成String。
+ * 源数据可以是字符数组，也可以是UTF-8字节，内容为引号之间的原始数据，生成String时才解码其中的转义。
+ * 对象本身不可变，生成的String与String.hashCode一样允许多线程重复生成。
+ * 注意String.equals(JsonString)总是返回false，比较时请使用JsonString.equals或者String.contentEquals。
+ * @author venia
+ */
+public final class JsonString implements CharSequence, Comparable<JsonString> {
+	
+	private final char[] chars;			// 字符源，与bytes二选一
+	private final ByteBuffer bytes;		// UTF-8字节源
+	private final int start;
+	private final int end;
+	
+	private String value;		// 生成的字符串
+	private byte plain;			// 字符源是否不含转义：0为未知，1为不含，-1为含有
+	
+	public JsonString(char[] chars, int start, int end) {
+		this.chars = chars;
+		this.bytes = null;
+		this.start = start;
+		this.end = end;
+	}
+	
+	// 只使用绝对位置读取，不会改变bytes的position
+	public JsonString(ByteBuffer bytes, int start, int end) {
+		this.chars = null;
+		this.bytes = bytes;
+		this.start = start;
+		this.end = end;
+	}
+	
+	// 是否已经生成了String
+	public boolean isMaterialized() {
+		return value != null;
+	}
+	
+	// 没有转义的字符源可以直接读取，不需要生成String
+	private boolean direct() {
+		if(chars == null) return false;
+		if(plain == 0) {
+			plain = (byte) (StringDecoder.indexOfEscape(chars, start, end) < 0 ? 1 : -1);
+		}
+		return plain > 0;
+	}
+	
+	public int length() {
+		if(direct()) return end - start;
+		return toString().length();
+	}
+	
+	public char charAt(int index) {
+		if(direct()) {
+			if(index < 0 || index >= end - start) throw new StringIndexOutOfBoundsException(index);
+			return chars[start + index];
+		}
+		return toString().charAt(index);
+	}
+	
+	public CharSequence subSequence(int from, int to) {
+		if(direct()) {
+			if(from < 0 || to > end - start || from > to) throw new StringIndexOutOfBoundsException(from);
+			return new JsonString(chars, start + from, start + to);
+		}
+		return toString().subSequence(from, to);
+	}
+	
+	public String toString() {
+		String v = value;
+		if(v == null) {
+			if(chars != null) {
+				v = StringDecoder.decode(chars, start, end);
+			}
+			else if(StringDecoder.indexOfEscape(bytes, start, end) >= 0) {
+				v = StringDecoder.decode(bytes, start, end);
+			}
+			else if(bytes.hasArray()) {
+				v = new String(bytes.array(), bytes.arrayOffset() + start, end - start, StandardCharsets.UTF_8);
+			}
+			else {
+				byte[] b = new byte[end - start];
+				for(int i = 0; i < b.length; i++) b[i] = bytes.get(start + i);
+				v = new String(b, StandardCharsets.UTF_8);
+			}
+			value = v;
+		}
+		return v;
+	}
+	
+	// 与对应String的hashCode一致
+	public int hashCode() {
+		return toString().hashCode();
+	}
+	
+	public boolean equals(Object obj) {
+		if(this == obj) return true;
+		if(obj instanceof JsonString) return toString().equals(obj.toString());
+		if(obj instanceof String) return toString().equals(obj);
+		return false;
+	}
+	
+	public int compareTo(JsonString o) {
+		return toString().compareTo(o.toString());
+	}
+}
@@ -0,0 +1,318 @@
+package cn.via;
+
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 扁平的token带：解析时不生成任何Map/List，每个token在long[]中占两个字：
+ * 第一个字的高8位为类型，低56位为token在源数据中的起始位置；
+ * 第二个字对容器的开始与结束为配对token的下标，对字符串为结束位置，对数字为数值本身。
+ * 跳过一个对象或数组只需要读取配对下标，是O(1)的。下标i指第i个token，根容器的下标为0。
+ * 字符串与成员名按需从源数据中生成，toObject可以把任意子树转换为Map/List。
+ * @author venia
+ */
+public final class JsonTape {
+	
+	public static enum TYPE {
+		OBJECT, END_OBJECT,
+		ARRAY, END_ARRAY,
+		KEY, STRING,
+		LONG, DOUBLE,		// 数值直接保存在第二个字中
+		BIG_NUMBER,			// 超出long范围的整数，第二个字为结束位置
+		TRUE, FALSE, NULL
+	}
+	
+	private static final TYPE[] TYPES = TYPE.values();
+	private static final int TYPE_SHIFT = 56;
+	private static final long OFFSET_MASK = (1L << TYPE_SHIFT) - 1;
+	
+	private final char[] chars;			// 字符源，与bytes二选一
+	private final ByteBuffer bytes;		// UTF-8字节源，只使用绝对位置读取
+	private long[] tape;
+	private int count;					// token个数
+	
+	private JsonTape(char[] chars, ByteBuffer bytes, int capacity) {
+		this.chars = chars;
+		this.bytes = bytes;
+		this.tape = new long[Math.max(capacity, 16) * 2];
+	}
+	
+	// 读完reader中的所有事件生成token带，源数据必须与reader解析的数据相同
+	static JsonTape build(JsonReader reader, char[] chars, ByteBuffer bytes) {
+		JsonTape t = new JsonTape(chars, bytes, (chars != null ? chars.length : bytes.remaining()) / 8);
+		int[] open = new int[32];		// 尚未结束的容器的下标
+		int[] sizes = new int[32];		// 容器中已有的值的个数
+		int depth = 0;
+		
+		JsonReader.EVENT event;
+		while((event = reader.next()) != JsonReader.EVENT.END_DOCUMENT) {
+			long offset = reader.getTokenStart();
+			switch(event) {
+			case START_OBJECT:
+			case START_ARRAY:
+				if(depth > 0) sizes[depth - 1]++;
+				if(depth == open.length) {
+					open = Arrays.copyOf(open, depth * 2);
+					sizes = Arrays.copyOf(sizes, depth * 2);
+				}
+				open[depth] = t.count;
+				sizes[depth++] = 0;
+				t.add(event == JsonReader.EVENT.START_OBJECT ? TYPE.OBJECT : TYPE.ARRAY, offset, 0);
+				break;
+			
+			case END_OBJECT:
+			case END_ARRAY:
+				int start = open[--depth];
+				t.tape[start * 2 + 1] = t.count;
+				// 结束token的起始位置字段保存成员个数，它的源位置可以由配对关系推出，不需要保存
+				t.add(event == JsonReader.EVENT.END_OBJECT ? TYPE.END_OBJECT : TYPE.END_ARRAY, sizes[depth], start);
+				break;
+			
+			case FIELD_NAME:
+				t.add(TYPE.KEY, offset, reader.getTokenEnd());
+				break;
+			
+			case VALUE_STRING:
+				sizes[depth - 1]++;
+				t.add(TYPE.STRING, offset, reader.getTokenEnd());
+				break;
+			
+			case VALUE_NUMBER:
+				sizes[depth - 1]++;
+				if(reader.isIntegral()) t.add(TYPE.LONG, offset, reader.getLong());
+				else if(reader.isDecimal()) t.add(TYPE.DOUBLE, offset, Double.doubleToRawLongBits(reader.getDouble()));
+				else t.add(TYPE.BIG_NUMBER, offset, reader.getTokenEnd());
+				break;
+			
+			case VALUE_TRUE:
+				sizes[depth - 1]++;
+				t.add(TYPE.TRUE, offset, 0);
+				break;
+			
+			case VALUE_FALSE:
+				sizes[depth - 1]++;
+				t.add(TYPE.FALSE, offset, 0);
+				break;
+			
+			case VALUE_NULL:
+				sizes[depth - 1]++;
+				t.add(TYPE.NULL, offset, 0);
+				break;
+			
+			default:
+				break;
+			}
+		}
+		return t;
+	}
+	
+	private void add(TYPE type, long offset, long payload) {
+		if(count * 2 == tape.length) {
+			tape = Arrays.copyOf(tape, tape.length * 2);
+		}
+		tape[count * 2] = ((long) type.ordinal() << TYPE_SHIFT) | offset;
+		tape[count * 2 + 1] = payload;
+		count++;
+	}
+	
+	// token的个数
+	public int length() {
+		return count;
+	}
+	
+	public TYPE getType(int i) {
+		return TYPES[(int) (tape[i * 2] >>> TYPE_SHIFT)];
+	}
+	
+	// token在源数据中的起始位置，字符串不含引号。Tokenizer按字符计，ByteTokenizer按字节计
+	public long getOffset(int i) {
+		TYPE type = getType(i);
+		if(type == TYPE.END_OBJECT || type == TYPE.END_ARRAY) {
+			return -1;
+		}
+		return tape[i * 2] & OFFSET_MASK;
+	}
+	
+	// 与容器开始或结束token配对的下标
+	public int getMatch(int i) {
+		checkContainer(i);
+		return (int) tape[i * 2 + 1];
+	}
+	
+	// 对象的成员个数或数组的元素个数
+	public int getSize(int i) {
+		TYPE type = getType(i);
+		if(type == TYPE.OBJECT || type == TYPE.ARRAY) i = (int) tape[i * 2 + 1];
+		else checkContainer(i);
+		return (int) (tape[i * 2] & OFFSET_MASK);
+	}
+	
+	// 跳过下标i处的值，返回其后的下标，对象与数组直接跳到配对的结束token之后
+	public int skip(int i) {
+		TYPE type = getType(i);
+		if(type == TYPE.OBJECT || type == TYPE.ARRAY) {
+			return (int) tape[i * 2 + 1] + 1;
+		}
+		return i + 1;
+	}
+	
+	// 容器的第一个成员名（对象）或第一个元素（数组）的下标，容器为空时返回-1
+	public int first(int i) {
+		checkContainer(i);
+		return isEnd(i + 1) ? -1 : i + 1;
+	}
+	
+	// 下一个成员名或元素的下标，i为成员名或元素的下标，没有时返回-1
+	public int next(int i) {
+		int j = getType(i) == TYPE.KEY ? skip(i + 1) : skip(i);
+		return isEnd(j) ? -1 : j;
+	}
+	
+	// 在对象中查找成员，返回成员值的下标，找不到时返回-1。比较直接在源数据上进行，只有可能含有转义的名字才生成String
+	public int find(int obj, String name) {
+		if(getType(obj) != TYPE.OBJECT) throw new IllegalArgumentException("Not an object at " + obj + "!");
+		
+		byte[] utf8 = chars == null ? name.getBytes(StandardCharsets.UTF_8) : null;
+		for(int k = first(obj); k >= 0; k = next(k)) {
+			int start = (int) (tape[k * 2] & OFFSET_MASK);
+			int end = (int) tape[k * 2 + 1];
+			if(chars != null ? equals(name, start, end) : equals(utf8, start, end)) {
+				return k + 1;
+			}
+			if(end - start > (chars != null ? name.length() : utf8.length) && getString(k).equals(name)) { // 含有转义的名字比解码后更长
+				return k + 1;
+			}
+		}
+		return -1;
+	}
+	
+	// 数组的第n个元素的下标，越界时返回-1
+	public int get(int arr, int n) {
+		if(getType(arr) != TYPE.ARRAY) throw new IllegalArgumentException("Not an array at " + arr + "!");
+		if(n < 0 || n >= getSize(arr)) return -1;
+		
+		int i = arr + 1;
+		for(int k = 0; k < n; k++) i = skip(i);
+		return i;
+	}
+	
+	// 成员名或字符串值
+	public String getString(int i) {
+		return getSequence(i).toString();
+	}
+	
+	// 源数据上的视图，延迟生成String
+	public JsonString getSequence(int i) {
+		TYPE type = getType(i);
+		if(type != TYPE.KEY && type != TYPE.STRING && type != TYPE.BIG_NUMBER) throw new IllegalArgumentException("Not a string at " + i + "!");
+		
+		int start = (int) (tape[i * 2] & OFFSET_MASK);
+		int end = (int) tape[i * 2 + 1];
+		return chars != null ? new JsonString(chars, start, end) : new JsonString(bytes, start, end);
+	}
+	
+	public long getLong(int i) {
+		switch(getType(i)) {
+		case LONG:			return tape[i * 2 + 1];
+		case DOUBLE:		return (long) Double.longBitsToDouble(tape[i * 2 + 1]);
+		case BIG_NUMBER:	return new BigInteger(getString(i)).longValue();
+		default:			throw new IllegalArgumentException("Not a number at " + i + "!");
+		}
+	}
+	
+	public double getDouble(int i) {
+		switch(getType(i)) {
+		case LONG:			return tape[i * 2 + 1];
+		case DOUBLE:		return Double.longBitsToDouble(tape[i * 2 + 1]);
+		case BIG_NUMBER:	return Double.parseDouble(getString(i));
+		default:			throw new IllegalArgumentException("Not a number at " + i + "!");
+		}
+	}
+	
+	// 装箱后的数值：Integer，Long，Double或BigInteger
+	public Object getNumber(int i) {
+		switch(getType(i)) {
+		case LONG:
+			long v = tape[i * 2 + 1];
+			if(v >= Integer.MIN_VALUE && v <= Integer.MAX_VALUE) return Integer.valueOf((int) v);
+			return Long.valueOf(v);
+		case DOUBLE:		return Double.valueOf(Double.longBitsToDouble(tape[i * 2 + 1]));
+		case BIG_NUMBER:	return new BigInteger(getString(i));
+		default:			throw new IllegalArgumentException("Not a number at " + i + "!");
+		}
+	}
+	
+	public boolean getBoolean(int i) {
+		TYPE type = getType(i);
+		if(type != TYPE.TRUE && type != TYPE.FALSE) throw new IllegalArgumentException("Not a boolean at " + i + "!");
+		return type == TYPE.TRUE;
+	}
+	
+	public boolean isNull(int i) {
+		return getType(i) == TYPE.NULL;
+	}
+	
+	// 把下标i处的值转换为与TinyJsonParser.parse相同的结构，只有调用这个方法时才会生成Map/List
+	public Object toObject(int i) {
+		switch(getType(i)) {
+		case OBJECT:
+			Map<String, Object> map = new HashMap<>();
+			for(int k = first(i); k >= 0; k = next(k)) {
+				map.put(getString(k), toObject(k + 1));
+			}
+			return map;
+		
+		case ARRAY:
+			List<Object> list = new ArrayList<>(getSize(i));
+			for(int k = first(i); k >= 0; k = next(k)) {
+				list.add(toObject(k));
+			}
+			return list;
+		
+		case STRING:	return getString(i);
+		case TRUE:		return Tokenizer.TRUE;
+		case FALSE:		return Tokenizer.FALSE;
+		case NULL:		return null;
+		case LONG:
+		case DOUBLE:
+		case BIG_NUMBER:
+			return getNumber(i);
+		default:
+			throw new IllegalArgumentException("Not a value at " + i + "!");
+		}
+	}
+	
+	private boolean isEnd(int i) {
+		TYPE type = getType(i);
+		return type == TYPE.END_OBJECT || type == TYPE.END_ARRAY;
+	}
+	
+	private void checkContainer(int i) {
+		TYPE type = getType(i);
+		if(type != TYPE.OBJECT && type != TYPE.ARRAY && type != TYPE.END_OBJECT && type != TYPE.END_ARRAY) {
+			throw new IllegalArgumentException("Not an object or array at " + i + "!");
+		}
+	}
+	
+	private boolean equals(String name, int start, int end) {
+		if(name.length() != end - start) return false;
+		for(int k = 0; k < name.length(); k++) {
+			if(name.charAt(k) != chars[start + k]) return false;
+		}
+		return true;
+	}
+	
+	private boolean equals(byte[] name, int start, int end) {
+		if(name.length != end - start) return false;
+		for(int k = 0; k < name.length; k++) {
+			if(name[k] != bytes.get(start + k)) return false;
+		}
+		return true;
+	}
+}
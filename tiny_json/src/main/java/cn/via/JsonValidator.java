@@ -0,0 +1,124 @@
+package cn.via;
+
+import java.io.StringReader;
+import java.nio.ByteBuffer;
+
+import cn.via.JsonReader.EVENT;
+
+/**
+ * 只检查JSON是否合法，不生成任何结果：使用与解析相同的词法分析器与状态机，但是不生成字符串，数字只检查格式不计算数值，
+ * 也不创建Context等构建结果的对象。词法分析器与嵌套栈在多次检查之间复用，稳定之后合法的输入不会分配内存
+ * （byte[]输入只需要一个ByteBuffer包装），出错时才创建异常，并且不打印出错的环境。
+ * 根必须是对象或数组，之后只能有空白字符；嵌套层数同样受ParseOptions.maxDepth限制。
+ * 不是线程安全的，多线程时每个线程使用自己的实例，也可以通过JsonValidator.local()获取线程本地的实例。
+ * @author venia
+ */
+public class JsonValidator {
+	
+	private static final ThreadLocal<JsonValidator> LOCAL = ThreadLocal.withInitial(JsonValidator::new);
+	
+	private static final int MAX_RETAINED = 1 << 16;	// 更长的字符串按流模式读取，不复制到缓冲区
+	private static final char[] NO_CHARS = new char[0];
+	private static final ByteBuffer NO_BYTES = ByteBuffer.allocate(0);
+	
+	private final JsonReader reader;
+	private final Tokenizer chars = new Tokenizer(NO_CHARS);
+	private final ByteTokenizer bytes = new ByteTokenizer(NO_BYTES);
+	
+	private char[] buf = new char[256];	// 字符串输入复制到这里
+	
+	private String error;		// 上一次检查的错误信息，合法时为null
+	private int errorRow;
+	private int errorCol;
+	
+	public JsonValidator() {
+		this(new ParseOptions());
+	}
+	
+	// 只使用options中的maxDepth
+	public JsonValidator(ParseOptions options) {
+		if(options == null) throw new NullPointerException();
+		
+		this.reader = new JsonReader(chars, options);
+		this.reader.setQuiet(true);
+		this.chars.setValidating(true);
+		this.bytes.setValidating(true);
+	}
+	
+	// 当前线程的实例，使用默认的选项
+	public static JsonValidator local() {
+		return LOCAL.get();
+	}
+	
+	public boolean validate(String source) {
+		int n = source.length();
+		if (n > MAX_RETAINED) {
+			Tokenizer stream = new Tokenizer(new StringReader(source));
+			stream.setValidating(true);
+			return check(stream);
+		}
+		
+		if (buf.length < n) {
+			buf = new char[Math.max(n, buf.length * 2)];
+		}
+		source.getChars(0, n, buf, 0);
+		chars.reset(buf, 0, n);
+		try {
+			return check(chars);
+		} finally {
+			chars.reset(NO_CHARS, 0, 0);
+		}
+	}
+	
+	public boolean validate(byte[] source) {
+		return validate(source, 0, source.length);
+	}
+	
+	// 按UTF-8检查 source[offset, offset+length)
+	public boolean validate(byte[] source, int offset, int length) {
+		bytes.reset(ByteBuffer.wrap(source, offset, length));
+		try {
+			return check(bytes);
+		} finally { // 不再引用源数据
+			bytes.reset(NO_BYTES);
+		}
+	}
+	
+	// 词法分析器与状态机在检查模式下抛出的QuietException不记录调用栈，也不打印出错的环境
+	private boolean check(Lexer lexer) {
+		error = null;
+		reader.reset(lexer);
+		try {
+			if (reader.next() == EVENT.END_DOCUMENT) {
+				return fail("Expected a '{' or '[' at row:" + lexer.getRowCount() + ", col:" + lexer.getColCount() + ".", lexer);
+			}
+			while (reader.next() != EVENT.END_DOCUMENT) {
+				// 只驱动状态机
+			}
+			return true;
+		} catch (RuntimeException e) {
+			return fail(e.getMessage(), lexer);
+		}
+	}
+	
+	private boolean fail(String msg, Lexer lexer) {
+		error = msg;
+		errorRow = lexer.getRowCount();
+		errorCol = lexer.getColCount();
+		return false;
+	}
+	
+	// 上一次检查的错误信息，与解析时的异常信息相同；合法时为null
+	public String getError() {
+		return error;
+	}
+	
+	// 上一次检查出错的位置，合法时没有意义
+	public int getErrorRow() {
+		return errorRow;
+	}
+	
+	public int getErrorCol() {
+		return errorCol;
+	}
+}
@@ -0,0 +1,141 @@
+package cn.via;
+
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.Map;
+import java.util.RandomAccess;
+
+/**
+ * 把Map/List等对象写成JSON，可以输出到Appendable、OutputStream（UTF-8）或者ByteBuffer。
+ * 基于JsonGenerator逐个输出，不会为每一层生成中间字符串。
+ * 字符串按JSON规范转义；可以输出紧凑格式，也可以输出带缩进的格式。
+ * 输出到ByteBuffer时空间不足会抛出BufferOverflowException，写完后需要调用flush。
+ * 不是线程安全的。
+ * @author venia
+ */
+public class JsonWriter implements Flushable {
+	
+	private final JsonGenerator gen;
+	
+	public JsonWriter(Appendable out) {
+		this(new JsonGenerator(out));
+	}
+	
+	// 按UTF-8编码输出
+	public JsonWriter(OutputStream out) {
+		this(new JsonGenerator(out));
+	}
+	
+	// 按UTF-8编码写入out的position处，可以反复clear之后重用
+	public JsonWriter(ByteBuffer out) {
+		this(new JsonGenerator(out));
+	}
+	
+	// 写入一个已有的JsonGenerator，可以与流式输出混用
+	public JsonWriter(JsonGenerator gen) {
+		if(gen == null) throw new NullPointerException();
+		this.gen = gen;
+	}
+	
+	// 设置缩进，例如"\t"或"  "，为null时输出紧凑格式（默认）
+	public JsonWriter setIndent(String indent) {
+		gen.setIndent(indent);
+		return this;
+	}
+	
+	/**
+	 * 输出一个值：Map、List、数组、CharSequence、Number、Boolean或null，其他对象按toString作为字符串输出。
+	 * JsonArray中的数字直接按原始类型输出，不会装箱。
+	 */
+	public JsonWriter write(Object value) throws IOException {
+		if(value == null) {
+			gen.writeNull();
+		}
+		else if(value instanceof CharSequence) {
+			gen.writeString((CharSequence) value);
+		}
+		else if(value instanceof Map) {
+			gen.writeStartObject();
+			for(Map.Entry<?, ?> e : ((Map<?, ?>) value).entrySet()) {
+				gen.writeFieldName(String.valueOf(e.getKey()));
+				write(e.getValue());
+			}
+			gen.writeEndObject();
+		}
+		else if(value instanceof JsonArray) {
+			JsonArray a = (JsonArray) value;
+			gen.writeStartArray();
+			for(int i = 0, n = a.size(); i < n; i++) {
+				if(a.isLongArray()) gen.writeNumber(a.getLong(i));
+				else if(a.isDoubleArray()) gen.writeNumber(a.getDouble(i));
+				else write(a.get(i));
+			}
+			gen.writeEndArray();
+		}
+		else if(value instanceof List) {
+			List<?> list = (List<?>) value;
+			gen.writeStartArray();
+			if(list instanceof RandomAccess) {
+				for(int i = 0, n = list.size(); i < n; i++) write(list.get(i));
+			}
+			else {
+				for(Object o : list) write(o);
+			}
+			gen.writeEndArray();
+		}
+		else if(value instanceof Number) {
+			gen.writeNumber((Number) value);
+		}
+		else if(value instanceof Boolean) {
+			gen.writeBoolean(((Boolean) value).booleanValue());
+		}
+		else if(value instanceof Object[]) {
+			gen.writeStartArray();
+			for(Object o : (Object[]) value) write(o);
+			gen.writeEndArray();
+		}
+		else if(value instanceof long[]) {
+			gen.writeStartArray();
+			for(long v : (long[]) value) gen.writeNumber(v);
+			gen.writeEndArray();
+		}
+		else if(value instanceof int[]) {
+			gen.writeStartArray();
+			for(int v : (int[]) value) gen.writeNumber(v);
+			gen.writeEndArray();
+		}
+		else if(value instanceof double[]) {
+			gen.writeStartArray();
+			for(double v : (double[]) value) gen.writeNumber(v);
+			gen.writeEndArray();
+		}
+		else {
+			gen.writeString(value.toString());
+		}
+		return this;
+	}
+	
+	public void flush() throws IOException {
+		gen.flush();
+	}
+	
+	// 紧凑格式的JSON字符串
+	public static String toJson(Object value) {
+		return toJson(value, null);
+	}
+	
+	// indent为null时输出紧凑格式
+	public static String toJson(Object value, String indent) {
+		StringBuilder sb = new StringBuilder();
+		try {
+			new JsonWriter(sb).setIndent(indent).write(value).flush();
+		} catch (IOException e) { // StringBuilder不会抛出
+			throw new UncheckedIOException(e);
+		}
+		return sb.toString();
+	}
+}
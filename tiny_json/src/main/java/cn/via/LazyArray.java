@@ -0,0 +1,78 @@
+package cn.via;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.RandomAccess;
+
+import cn.via.JsonReader.EVENT;
+
+/**
+ * 延迟解析的数组，与LazyObject相同，第一次访问时才解析这一层的元素。
+ * @author venia
+ */
+public final class LazyArray extends AbstractList<Object> implements RandomAccess {
+	
+	private LazySource src;
+	private int start;
+	private int end;
+	
+	private List<Object> list;	// 解析结果，解析之前为null
+	
+	LazyArray(LazySource src, int start, int end) {
+		this.src = src;
+		this.start = start;
+		this.end = end;
+	}
+	
+	// 直接从reader中读取这一层的元素，reader的当前事件为START_ARRAY
+	LazyArray(LazySource src, JsonReader reader) {
+		this.src = src;
+		load(reader);
+	}
+	
+	// 是否已经解析
+	public boolean isLoaded() {
+		return list != null;
+	}
+	
+	private List<Object> list() {
+		if (list == null) {
+			JsonReader reader = src.open(start, end);
+			reader.next();
+			load(reader);
+		}
+		return list;
+	}
+	
+	private void load(JsonReader reader) {
+		List<Object> l = new ArrayList<>();
+		while (reader.next() != EVENT.END_ARRAY) {
+			l.add(src.value(reader));
+		}
+		list = l;
+		src = null; // 解析之后不再需要源数据
+	}
+	
+	public int size() {
+		return list().size();
+	}
+	
+	public Object get(int index) {
+		return list().get(index);
+	}
+	
+	public Object set(int index, Object element) {
+		return list().set(index, element);
+	}
+	
+	public void add(int index, Object element) {
+		list().add(index, element);
+		modCount++;
+	}
+	
+	public Object remove(int index) {
+		modCount++;
+		return list().remove(index);
+	}
+}
@@ -0,0 +1,88 @@
+package cn.via;
+
+import java.util.AbstractMap;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+import cn.via.JsonReader.EVENT;
+
+/**
+ * 延迟解析的对象：创建时只记录在源数据中的区间，第一次访问时才解析这一层的成员，
+ * 成员中的对象与数组依然是延迟解析的。解析之前不检查其中的语法，错误在第一次访问时才抛出。
+ * 不是线程安全的，多线程访问前需要先调用一次size等方法完成解析。
+ * @author venia
+ */
+public final class LazyObject extends AbstractMap<String, Object> {
+	
+	private LazySource src;
+	private int start;
+	private int end;
+	
+	private Map<String, Object> map;	// 解析结果，解析之前为null
+	
+	LazyObject(LazySource src, int start, int end) {
+		this.src = src;
+		this.start = start;
+		this.end = end;
+	}
+	
+	// 直接从reader中读取这一层的成员，reader的当前事件为START_OBJECT
+	LazyObject(LazySource src, JsonReader reader) {
+		this.src = src;
+		load(reader);
+	}
+	
+	// 是否已经解析
+	public boolean isLoaded() {
+		return map != null;
+	}
+	
+	private Map<String, Object> map() {
+		if (map == null) {
+			JsonReader reader = src.open(start, end);
+			reader.next();
+			load(reader);
+		}
+		return map;
+	}
+	
+	private void load(JsonReader reader) {
+		Map<String, Object> m = new HashMap<>();
+		while (reader.next() != EVENT.END_OBJECT) {
+			String name = reader.getString();
+			reader.next();
+			m.put(name, src.value(reader));
+		}
+		map = m;
+		src = null; // 解析之后不再需要源数据
+	}
+	
+	public int size() {
+		return map().size();
+	}
+	
+	public Object get(Object key) {
+		return map().get(key);
+	}
+	
+	public boolean containsKey(Object key) {
+		return map().containsKey(key);
+	}
+	
+	public Object put(String key, Object value) {
+		return map().put(key, value);
+	}
+	
+	public Object remove(Object key) {
+		return map().remove(key);
+	}
+	
+	public void clear() {
+		map().clear();
+	}
+	
+	public Set<Entry<String, Object>> entrySet() {
+		return map().entrySet();
+	}
+}
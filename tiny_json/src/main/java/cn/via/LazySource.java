@@ -0,0 +1,74 @@
+package cn.via;
+
+import java.nio.ByteBuffer;
+
+import cn.via.JsonReader.EVENT;
+
+/**
+ * 延迟解析的源数据，LazyObject与LazyArray共享。
+ * 每次只解析一层：嵌套的对象与数组通过括号匹配直接跳过，只记录其在源数据中的区间。
+ * @author venia
+ */
+final class LazySource {
+	
+	private final char[] chars;			// 字符源，与bytes二选一
+	private final ByteBuffer bytes;		// UTF-8字节源，只使用绝对位置读取
+	private final ParseOptions options;
+	
+	LazySource(char[] chars, ByteBuffer bytes, ParseOptions options) {
+		this.chars = chars;
+		this.bytes = bytes;
+		this.options = options;
+	}
+	
+	// 解析整个源数据的第一层，之后的内容依然做语法检查
+	static Object parse(char[] chars, ByteBuffer bytes, ParseOptions options) {
+		LazySource src = new LazySource(chars, bytes, options);
+		JsonReader reader = chars != null ? src.open(0, chars.length) : src.open(bytes.position(), bytes.limit());
+		
+		Object root = null;
+		EVENT e = reader.next();
+		if (e == EVENT.START_OBJECT) {
+			root = new LazyObject(src, reader);
+		}
+		else if (e == EVENT.START_ARRAY) {
+			root = new LazyArray(src, reader);
+		}
+		
+		if (e != EVENT.END_DOCUMENT) {
+			reader.next(); // 根之后只能是结尾
+		}
+		return root;
+	}
+	
+	// 源数据[start, end)上的JsonReader，出错时的行号与列号从start开始计算
+	JsonReader open(int start, int end) {
+		if (chars != null) {
+			return new JsonReader(new Tokenizer(chars, start, end), options);
+		}
+		
+		ByteBuffer b = bytes.duplicate();
+		b.limit(end);
+		b.position(start);
+		return new JsonReader(new ByteTokenizer(b), options);
+	}
+	
+	// 当前事件对应的值，对象与数组只记录区间
+	Object value(JsonReader reader) {
+		switch (reader.getEvent()) {
+		case START_OBJECT:
+			reader.skipRaw();
+			return new LazyObject(this, (int) reader.getTokenStart(), (int) reader.getTokenEnd());
+		
+		case START_ARRAY:
+			reader.skipRaw();
+			return new LazyArray(this, (int) reader.getTokenStart(), (int) reader.getTokenEnd());
+		
+		case VALUE_STRING:	return reader.getCharSequence();
+		case VALUE_NUMBER:	return reader.getNumber();
+		case VALUE_TRUE:	return Tokenizer.TRUE;
+		case VALUE_FALSE:	return Tokenizer.FALSE;
+		default:			return null;
+		}
+	}
+}
@@ -0,0 +1,64 @@
+package cn.via;
+
+import java.io.OutputStream;
+
+import cn.via.ParseOptions.NUMBER_POLICY;
+import cn.via.Tokenizer.TAG;
+
+/**
+ * 词法分析器，TinyJsonParser的状态机只依赖这个接口。
+ * 字符输入使用{@link Tokenizer}，UTF-8字节输入使用{@link ByteTokenizer}，两者共用{@link Tokenizer.TAG}。
+ * @author venia
+ */
+public interface Lexer {
+	
+	// 查看下一个token的类型，不移动读取位置；每个token只扫描一次，重复调用直接返回上次的结果
+	TAG peek();
+	
+	// 根据tag吃掉当前的token，将指针后移
+	void swallow(TAG tag);
+	
+	// 当前token为 { 或 [ 时，只做括号匹配跳过整个对象或数组，之后token的起止位置为整个对象或数组（含括号）
+	void skipContainer();
+	
+	// tag为STRING时的字符串内容
+	String getToken();
+	
+	// tag为STRING时，字符串内容是否与s相同，不生成String
+	boolean matches(String s);
+	
+	// 与getToken相同，但是先在符号表中查找，用于对象成员名
+	String getToken(SymbolTable symbols);
+	
+	// 与getToken相同，但是源数据不会被覆盖时返回一个延迟生成String的JsonString
+	CharSequence getLazyToken();
+	
+	// tag为NUMBER时的数值对象，按NUMBER_POLICY.DEFAULT装箱
+	Object getNum();
+	
+	// tag为NUMBER时的数值对象，按照给定的策略装箱
+	Object getNum(NUMBER_POLICY policy);
+	
+	// tag为NUMBER时，数字是否为long范围内的整数
+	boolean isIntegral();
+	
+	// tag为NUMBER时，数字是否带有小数点或指数
+	boolean isDecimal();
+	
+	// tag为NUMBER时的原始类型数值，不需要装箱
+	long getLong();
+	
+	double getDouble();
+	
+	// 当前token在整个输入中的起止位置，字符串不含引号。Tokenizer按字符计，ByteTokenizer按字节计
+	long getTokenStart();
+	
+	long getTokenEnd();
+	
+	int getRowCount();
+	
+	int getColCount();
+	
+	// 打印当前解析的环境
+	void printEnv(OutputStream out);
+}
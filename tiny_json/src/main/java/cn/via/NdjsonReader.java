@@ -0,0 +1,252 @@
+package cn.via;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * 按行分隔的JSON（NDJSON）读取器：每行一个对象或数组，空行忽略。
+ * 输入按换行切成若干块，每块作为一个任务交给线程池并行解析，默认使用ForkJoinPool.commonPool()，
+ * 也可以传入任意ExecutorService（例如虚拟线程的执行器）。
+ * 读取在调用者线程中进行，并且同时最多只有maxPending个块在解析，消费者不取结果就不会继续读，从而形成背压。
+ * 默认按输入顺序返回记录，关闭ordered之后按块的完成顺序返回，同一块中的记录依然保持顺序。
+ * 解析选项中不能设置SymbolTable，因为它不是线程安全的。
+ * @author venia
+ */
+public class NdjsonReader implements Iterable<Object>, Closeable {
+	
+	public static final int DEFAULT_CHUNK_SIZE = 1 << 16;
+	
+	private final InputStream in;
+	private ExecutorService executor = ForkJoinPool.commonPool();
+	private ParseOptions options = new ParseOptions();
+	private boolean ordered = true;
+	private int chunkSize = DEFAULT_CHUNK_SIZE;
+	private int maxPending = Runtime.getRuntime().availableProcessors() * 2;
+	
+	private byte[] carry = new byte[0];	// 上一块中最后一个换行之后的数据
+	private int carryLength;
+	private long lines;					// 已经切出的行数，用于错误信息中的行号
+	private boolean eof;
+	
+	private boolean started;
+	private final ArrayDeque<CompletableFuture<List<Object>>> pending = new ArrayDeque<>();		// 按提交顺序
+	private final BlockingQueue<CompletableFuture<List<Object>>> done = new LinkedBlockingQueue<>();	// 按完成顺序
+	private int running;
+	
+	public NdjsonReader(InputStream in) {
+		if(in == null) throw new NullPointerException();
+		this.in = in;
+	}
+	
+	public NdjsonReader(Path path) throws IOException {
+		this(Files.newInputStream(path));
+	}
+	
+	public NdjsonReader setExecutor(ExecutorService executor) {
+		if(executor == null) throw new NullPointerException();
+		this.executor = executor;
+		return this;
+	}
+	
+	public NdjsonReader setOptions(ParseOptions options) {
+		if(options.getSymbolTable() != null) throw new IllegalArgumentException("SymbolTable is not thread-safe!");
+		this.options = options;
+		return this;
+	}
+	
+	public NdjsonReader setOrdered(boolean ordered) {
+		this.ordered = ordered;
+		return this;
+	}
+	
+	// 每块的大小，单行超过这个大小时该块会自动扩大
+	public NdjsonReader setChunkSize(int chunkSize) {
+		if(chunkSize <= 0) throw new IllegalArgumentException("Chunk size must be positive!");
+		this.chunkSize = chunkSize;
+		return this;
+	}
+	
+	// 同时解析的块数的上限
+	public NdjsonReader setMaxPending(int maxPending) {
+		if(maxPending <= 0) throw new IllegalArgumentException("Max pending must be positive!");
+		this.maxPending = maxPending;
+		return this;
+	}
+	
+	/**
+	 * 逐条返回解析结果。只能遍历一次，解析错误与读取错误在next时抛出，
+	 * 解析错误的信息中带有记录所在的行号。
+	 */
+	public Iterator<Object> iterator() {
+		if(started) throw new IllegalStateException("NdjsonReader can only be iterated once!");
+		started = true;
+		
+		return new Iterator<Object>() {
+			private List<Object> batch = new ArrayList<>();
+			private int index;
+			
+			public boolean hasNext() {
+				while(index == batch.size()) {
+					batch = nextBatch();
+					index = 0;
+					if(batch == null) {
+						batch = new ArrayList<>();
+						return false;
+					}
+				}
+				return true;
+			}
+			
+			public Object next() {
+				if(!hasNext()) throw new NoSuchElementException();
+				return batch.get(index++);
+			}
+		};
+	}
+	
+	// 顺序流，关闭流时关闭输入
+	public Stream<Object> stream() {
+		Spliterator<Object> s = Spliterators.spliteratorUnknownSize(iterator(), Spliterator.ORDERED | Spliterator.NONNULL);
+		return StreamSupport.stream(s, false).onClose(() -> {
+			try {
+				close();
+			} catch (IOException e) {
+				throw new UncheckedIOException(e);
+			}
+		});
+	}
+	
+	// 下一块的解析结果，全部结束时返回null
+	private List<Object> nextBatch() {
+		try {
+			while(running < maxPending && submit()) {
+				// 填满并行的任务
+			}
+			if(running == 0) return null;
+			
+			running--;
+			CompletableFuture<List<Object>> f = ordered ? pending.poll() : done.take();
+			pending.remove(f);
+			return f.get();
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new RuntimeException(e);
+		} catch (ExecutionException e) {
+			if(e.getCause() instanceof RuntimeException) throw (RuntimeException) e.getCause();
+			throw new RuntimeException(e.getCause());
+		}
+	}
+	
+	// 读取下一块并提交解析任务，没有数据时返回false
+	private boolean submit() throws IOException {
+		if(eof && carryLength == 0) return false;
+		
+		byte[] buf = Arrays.copyOf(carry, Math.max(chunkSize, carryLength * 2));
+		int length = carryLength;
+		int scanned = carryLength;	// 已经确认没有换行的部分
+		int end = -1;				// 最后一个换行之后的位置
+		while(end < 0) {
+			if(length == buf.length) buf = Arrays.copyOf(buf, buf.length * 2);
+			
+			int n = eof ? -1 : in.read(buf, length, buf.length - length);
+			if(n < 0) {
+				eof = true;
+				end = length;
+				break;
+			}
+			length += n;
+			
+			if(length == buf.length) { // 读满之后才切分，从后往前找换行
+				for(int i = length - 1; i >= scanned; i--) {
+					if(buf[i] == '\n') {
+						end = i + 1;
+						break;
+					}
+				}
+				scanned = length;
+			}
+		}
+		
+		carryLength = length - end;
+		if(carry.length < carryLength) carry = new byte[Math.max(carryLength, chunkSize)];
+		System.arraycopy(buf, end, carry, 0, carryLength);
+		if(end == 0) return submit(); // 只有读到结尾时才可能为空
+		
+		final byte[] chunk = buf;
+		final int chunkEnd = end;
+		final long firstLine = lines + 1;
+		for(int i = 0; i < end; i++) {
+			if(buf[i] == '\n') lines++;
+		}
+		if(buf[end - 1] != '\n') lines++;
+		
+		CompletableFuture<List<Object>> f = CompletableFuture.supplyAsync(() -> parse(chunk, chunkEnd, firstLine), executor);
+		pending.add(f);
+		if(!ordered) f.whenComplete((r, e) -> done.add(f));
+		running++;
+		return true;
+	}
+	
+	// 解析块中的每一行
+	private List<Object> parse(byte[] chunk, int end, long firstLine) {
+		List<Object> records = new ArrayList<>();
+		long line = firstLine;
+		int start = 0;
+		while(start < end) {
+			int stop = start;
+			while(stop < end && chunk[stop] != '\n') stop++;
+			
+			int last = stop;
+			if(last > start && chunk[last - 1] == '\r') last--;
+			if(!isBlank(chunk, start, last)) {
+				try {
+					records.add(TinyJsonParser.parse(ByteBuffer.wrap(chunk, start, last - start), options));
+				} catch (RuntimeException e) {
+					throw new RuntimeException("Bad record at line:" + line + ". " + e.getMessage(), e);
+				}
+			}
+			
+			start = stop + 1;
+			line++;
+		}
+		return records;
+	}
+	
+	private static boolean isBlank(byte[] b, int start, int end) {
+		for(int i = start; i < end; i++) {
+			if(b[i] != ' ' && b[i] != '\t' && b[i] != '\r') return false;
+		}
+		return true;
+	}
+	
+	// 关闭输入，尚未完成的任务会被取消
+	public void close() throws IOException {
+		for(CompletableFuture<List<Object>> f : pending) f.cancel(true);
+		pending.clear();
+		running = 0;
+		in.close();
+	}
+}
@@ -0,0 +1,174 @@
+package cn.via;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+
+import cn.via.ParseOptions.NUMBER_POLICY;
+
+/**
+ * 直接从字符数组中解析数字，不生成中间字符串，也不依赖异常判断格式是否正确。
+ * 整数保存为long，小数的尾数小于2^53并且指数不超过22时直接用double精确计算，
+ * 只有超出long范围的整数以及超出快速路径的小数才回退到BigInteger或Double.parseDouble。
+ * 每个词法分析器持有一个实例，反复使用。
+ * @author venia
+ */
+final class NumberParser {
+	
+	private static final double[] POW10 = {
+		1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10,
+		1e11, 1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+	};
+	
+	private static final int MAX_DIGITS = 18;		// long能够完整保存的十进制位数
+	private static final long MAX_EXACT = 1L << 53;	// double能够精确表示的最大整数
+	
+	private boolean integral;	// 没有小数点与指数
+	private boolean exponent;	// 带有指数
+	private boolean big;		// 整数超出了long的范围
+	private long longValue;
+	private double doubleValue;
+	
+	boolean syntaxOnly;			// 只检查格式，不计算数值，JsonValidator使用
+	
+	private char[] chars;		// 源数据，回退与BigDecimal时使用
+	private int start;
+	private int end;
+	
+	// 解析 c[start, end)，格式错误时返回false
+	boolean parse(char[] c, int start, int end) {
+		this.chars = c;
+		this.start = start;
+		this.end = end;
+		this.big = false;
+		
+		int i = start;
+		boolean negative = false;
+		if(i < end && (c[i] == '-' || c[i] == '+')) {
+			negative = c[i] == '-';
+			i++;
+		}
+		
+		long mantissa = 0;
+		int digits = 0;			// 有效数字的位数，不含前导的0
+		int dropped = 0;		// 超出MAX_DIGITS被丢弃的位数
+		int scale = 0;			// 十进制指数
+		int count = 0;			// 读到的数字个数，整数与小数部分至少要有一个数字
+		
+		for(; i < end && c[i] >= '0' && c[i] <= '9'; i++, count++) {
+			if(digits < MAX_DIGITS) {
+				mantissa = mantissa * 10 + (c[i] - '0');
+				if(mantissa != 0) digits++;
+			}
+			else {
+				dropped++;
+				scale++;
+			}
+		}
+		
+		integral = true;
+		if(i < end && c[i] == '.') {
+			integral = false;
+			for(i++; i < end && c[i] >= '0' && c[i] <= '9'; i++, count++) {
+				if(digits < MAX_DIGITS) {
+					mantissa = mantissa * 10 + (c[i] - '0');
+					if(mantissa != 0) digits++;
+					scale--;
+				}
+				else {
+					dropped++;
+				}
+			}
+		}
+		if(count == 0) return false;
+		
+		exponent = false;
+		if(i < end && (c[i] == 'e' || c[i] == 'E')) {
+			integral = false;
+			exponent = true;
+			i++;
+			
+			boolean negativeExp = false;
+			if(i < end && (c[i] == '-' || c[i] == '+')) {
+				negativeExp = c[i] == '-';
+				i++;
+			}
+			
+			int exp = 0;
+			int expDigits = 0;
+			for(; i < end && c[i] >= '0' && c[i] <= '9'; i++, expDigits++) {
+				if(exp < 100000) exp = exp * 10 + (c[i] - '0'); // 再大也只能是0或者无穷
+			}
+			if(expDigits == 0) return false;
+			scale += negativeExp ? -exp : exp;
+		}
+		if(i != end) return false;
+		if(syntaxOnly) return true;
+		
+		if(integral) {
+			if(dropped == 0) {
+				longValue = negative ? -mantissa : mantissa;
+			}
+			else { // 19位以上的整数，可能依然在long的范围内
+				BigInteger b = new BigInteger(new String(c, start, end - start));
+				big = b.bitLength() > 63;
+				longValue = b.longValue();
+			}
+			doubleValue = big ? Double.parseDouble(new String(c, start, end - start)) : longValue;
+			return true;
+		}
+		
+		if(dropped == 0 && mantissa < MAX_EXACT && scale >= -22 && scale <= 22) {
+			double d = scale < 0 ? mantissa / POW10[-scale] : mantissa * POW10[scale];
+			doubleValue = negative ? -d : d;
+		}
+		else {
+			doubleValue = Double.parseDouble(new String(c, start, end - start));
+		}
+		longValue = (long) doubleValue;
+		return true;
+	}
+	
+	// 没有小数点与指数，并且在long的范围内
+	boolean isIntegral() {
+		return integral && !big;
+	}
+	
+	// 带有小数点或指数
+	boolean isDecimal() {
+		return !integral;
+	}
+	
+	long getLong() {
+		return longValue;
+	}
+	
+	double getDouble() {
+		return doubleValue;
+	}
+	
+	// 按照策略装箱
+	Object getNum(NUMBER_POLICY policy) {
+		if(integral) {
+			if(big) {
+				return new BigInteger(new String(chars, start, end - start));
+			}
+			if(policy == NUMBER_POLICY.LONG_DOUBLE
+					|| longValue < Integer.MIN_VALUE || longValue > Integer.MAX_VALUE) {
+				return Long.valueOf(longValue);
+			}
+			return Integer.valueOf((int) longValue);
+		}
+		
+		switch(policy) {
+		case BIG_DECIMAL:
+			return new BigDecimal(chars, start, end - start);
+		
+		case LEGACY:
+			if(exponent) return new BigDecimal(chars, start, end - start);
+			return Float.parseFloat(new String(chars, start, end - start));
+		
+		default:
+			return Double.valueOf(doubleValue);
+		}
+	}
+}
@@ -0,0 +1,278 @@
+package cn.via;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+import cn.via.ParseOptions.TREE_MODEL;
+import cn.via.Tokenizer.TAG;
+
+/**
+ * 并行解析根为数组的大文档：先做一次结构预扫描（识别字符串，记录嵌套深度），找出第一层每个元素的区间，
+ * 再用ForkJoinPool并行解析各个元素，最后按顺序放入根数组。
+ * 预扫描只检查第一层的逗号与括号，元素内部的语法由各自的解析过程检查。根不是数组时直接按顺序解析。
+ * @author venia
+ */
+final class ParallelArrayParser extends RecursiveAction {
+	
+	private static final long serialVersionUID = 1L;
+	
+	// 解析失败的元素在结果中的占位，异常在调用者线程中重新抛出，避免被ForkJoinPool包装
+	private static final class Failure {
+		final RuntimeException e;
+		
+		Failure(RuntimeException e) {
+			this.e = e;
+		}
+	}
+	
+	private final char[] chars;		// 字符源，与bytes二选一
+	private final byte[] bytes;
+	private final ParseOptions options;
+	private final int[] bounds;		// 第i个元素为 [bounds[2i], bounds[2i+1])
+	private final Object[] results;
+	private final int from;
+	private final int to;
+	private final int threshold;	// 元素个数不超过这个值时不再拆分
+	
+	private ParallelArrayParser(char[] chars, byte[] bytes, ParseOptions options, int[] bounds, Object[] results, int from, int to, int threshold) {
+		this.chars = chars;
+		this.bytes = bytes;
+		this.options = options;
+		this.bounds = bounds;
+		this.results = results;
+		this.from = from;
+		this.to = to;
+		this.threshold = threshold;
+	}
+	
+	static Object parse(char[] chars, byte[] bytes, ParseOptions options, ForkJoinPool pool) {
+		if(options.getSymbolTable() != null) throw new IllegalArgumentException("SymbolTable is not thread-safe!");
+		
+		int[] bounds = chars != null ? scan(chars) : scan(bytes);
+		if(bounds == null) { // 根不是数组
+			return chars != null ? TinyJsonParser.parse(new String(chars), options) : TinyJsonParser.parse(bytes, options);
+		}
+		
+		int n = bounds[bounds.length - 1];
+		Object[] results = new Object[n];
+		int threshold = Math.max(1, n / (pool.getParallelism() * 8));
+		pool.invoke(new ParallelArrayParser(chars, bytes, options, bounds, results, 0, n, threshold));
+		for(Object o : results) {
+			if(o instanceof Failure) throw ((Failure) o).e;
+		}
+		
+		if(options.getTreeModel() == TREE_MODEL.COMPACT) {
+			JsonArray array = new JsonArray(options.getNumberPolicy());
+			for(Object o : results) append(array, o);
+			return array;
+		}
+		return new ArrayList<>(Arrays.asList(results));
+	}
+	
+	// 与CompactBuilder相同：long范围内的整数与Double使用long[]/double[]保存，其他的数字（BigInteger、BigDecimal、Float）装箱保存
+	private static void append(JsonArray array, Object o) {
+		if(o instanceof Integer || o instanceof Long) {
+			array.addLong(((Number) o).longValue());
+		}
+		else if(o instanceof Double) {
+			array.addDouble((Double) o);
+		}
+		else {
+			array.add(o);
+		}
+	}
+	
+	protected void compute() {
+		if(to - from <= threshold) {
+			for(int i = from; i < to; i++) {
+				try {
+					results[i] = element(bounds[i * 2], bounds[i * 2 + 1]);
+				} catch (RuntimeException e) {
+					results[i] = new Failure(e);
+					return;
+				}
+			}
+			return;
+		}
+		
+		int mid = (from + to) >>> 1;
+		invokeAll(new ParallelArrayParser(chars, bytes, options, bounds, results, from, mid, threshold),
+				new ParallelArrayParser(chars, bytes, options, bounds, results, mid, to, threshold));
+	}
+	
+	// 解析一个元素，对象与数组交给TinyJsonParser，基本类型直接由词法分析器得到
+	private Object element(int start, int end) {
+		Lexer lexer = chars != null ? new Tokenizer(chars, start, end) : new ByteTokenizer(ByteBuffer.wrap(bytes, start, end - start));
+		try {
+			TAG tag = lexer.peek();
+			if(tag == TAG.L_BRACE || tag == TAG.L_BRACKET) {
+				JsonReader reader = new JsonReader(lexer, options);
+				reader.setOuterDepth(1); // 根数组占一层
+				return TinyJsonParser.parse(reader);
+			}
+			
+			Object value;
+			switch(tag) {
+			case STRING:	value = options.isLazyStrings() ? lexer.getLazyToken() : lexer.getToken(); break;
+			case NUMBER:	value = lexer.getNum(options.getNumberPolicy()); break;
+			case TRUE:		value = Tokenizer.TRUE; break;
+			case FALSE:		value = Tokenizer.FALSE; break;
+			case NULL:		value = null; break;
+			default:		throw new RuntimeException("Expect a string or a number or a object at row:1, col:1.");
+			}
+			lexer.swallow(tag);
+			if(lexer.peek() != TAG.EOF) {
+				throw new RuntimeException("Bad gramma at row:" + lexer.getRowCount() + ", col:" + lexer.getColCount() + ".");
+			}
+			return value;
+		} catch (RuntimeException e) {
+			int[] rc = position(chars, bytes, start);
+			throw new RuntimeException("Bad element at row:" + rc[0] + ", col:" + rc[1] + ". " + e.getMessage(), e);
+		}
+	}
+	
+	// 源数据中offset处的行号与列号，只在出错时计算
+	private static int[] position(char[] chars, byte[] bytes, int offset) {
+		int row = 1;
+		int col = 1;
+		for(int i = 0; i < offset; i++) {
+			int c = chars != null ? chars[i] : bytes[i];
+			if(c == '\n') {
+				row++;
+				col = 1;
+			}
+			else {
+				col++;
+			}
+		}
+		return new int[] {row, col};
+	}
+	
+	private static RuntimeException error(char[] chars, byte[] bytes, String msg, int offset) {
+		int[] rc = position(chars, bytes, offset);
+		return new RuntimeException(msg + rc[0] + ", col:" + rc[1] + ".");
+	}
+	
+	private static boolean isSpace(int c) {
+		return c == ' ' || c == '\t' || c == '\r' || c == '\n';
+	}
+	
+	/**
+	 * 预扫描：返回第一层元素的区间（已去掉首尾的空白），最后一项为元素个数；根不是数组时返回null。
+	 * 字符串中的括号与逗号不计数，引号可以是"或者'。
+	 */
+	static int[] scan(char[] c) {
+		int n = c.length;
+		int i = 0;
+		while(i < n && isSpace(c[i])) i++;
+		if(i == n || c[i] != '[') return null;
+		
+		int[] bounds = new int[64];
+		int count = 0;
+		int depth = 0;
+		int start = -1;		// 当前元素的第一个非空白字符
+		int last = -1;		// 当前元素的最后一个非空白字符之后
+		for(i++; i < n; i++) {
+			char ch = c[i];
+			if(isSpace(ch)) continue;
+			
+			if(depth == 0 && (ch == ',' || ch == ']')) {
+				if(start < 0) {
+					if(ch == ']' && count == 0) break; // 空数组
+					throw error(c, null, "Expect a string or a number or a object at row:", i);
+				}
+				if(count * 2 + 2 >= bounds.length) bounds = Arrays.copyOf(bounds, bounds.length * 2);
+				bounds[count * 2] = start;
+				bounds[count * 2 + 1] = last;
+				count++;
+				start = -1;
+				if(ch == ']') break;
+				continue;
+			}
+			
+			if(start < 0) start = i;
+			if(ch == '{' || ch == '[') {
+				depth++;
+			}
+			else if(ch == '}' || ch == ']') {
+				depth--;
+			}
+			else if(ch == '"' || ch == '\'') { // 跳过字符串
+				for(i++; i < n && c[i] != ch; i++) {
+					if(c[i] == '\\') i++;
+				}
+				if(i >= n) throw error(c, null, "Expect a " + ch + " at row:", n);
+			}
+			last = i + 1;
+		}
+		if(i >= n) throw new RuntimeException("The object or array is not closed.");
+		
+		for(i++; i < n; i++) {
+			if(!isSpace(c[i])) throw error(c, null, "Bad gramma at row:", i);
+		}
+		
+		bounds = Arrays.copyOf(bounds, count * 2 + 1);
+		bounds[count * 2] = count;
+		return bounds;
+	}
+	
+	// 与scan(char[])相同，UTF-8中多字节字符的每个字节都不小于0x80，不会与结构字符混淆
+	static int[] scan(byte[] c) {
+		int n = c.length;
+		int i = 0;
+		while(i < n && isSpace(c[i])) i++;
+		if(i == n || c[i] != '[') return null;
+		
+		int[] bounds = new int[64];
+		int count = 0;
+		int depth = 0;
+		int start = -1;
+		int last = -1;
+		for(i++; i < n; i++) {
+			byte ch = c[i];
+			if(isSpace(ch)) continue;
+			
+			if(depth == 0 && (ch == ',' || ch == ']')) {
+				if(start < 0) {
+					if(ch == ']' && count == 0) break;
+					throw error(null, c, "Expect a string or a number or a object at row:", i);
+				}
+				if(count * 2 + 2 >= bounds.length) bounds = Arrays.copyOf(bounds, bounds.length * 2);
+				bounds[count * 2] = start;
+				bounds[count * 2 + 1] = last;
+				count++;
+				start = -1;
+				if(ch == ']') break;
+				continue;
+			}
+			
+			if(start < 0) start = i;
+			if(ch == '{' || ch == '[') {
+				depth++;
+			}
+			else if(ch == '}' || ch == ']') {
+				depth--;
+			}
+			else if(ch == '"' || ch == '\'') {
+				for(i++; i < n && c[i] != ch; i++) {
+					if(c[i] == '\\') i++;
+				}
+				if(i >= n) throw error(null, c, "Expect a " + (char) ch + " at row:", n);
+			}
+			last = i + 1;
+		}
+		if(i >= n) throw new RuntimeException("The object or array is not closed.");
+		
+		for(i++; i < n; i++) {
+			if(!isSpace(c[i])) throw error(null, c, "Bad gramma at row:", i);
+		}
+		
+		bounds = Arrays.copyOf(bounds, count * 2 + 1);
+		bounds[count * 2] = count;
+		return bounds;
+	}
+}
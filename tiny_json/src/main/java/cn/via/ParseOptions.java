@@ -0,0 +1,94 @@
+package cn.via;
+
+/**
+ * 解析选项，除了嵌套深度的上限之外所有选项默认关闭，与不带选项的parse方法行为一致。
+ * 设置方法返回自身，可以链式调用。
+ * @author venia
+ */
+public class ParseOptions {
+	
+	// 数字在结果中的类型
+	public static enum NUMBER_POLICY {
+		DEFAULT,		// 整数为Integer，超出范围时为Long、BigInteger；小数为Double
+		LONG_DOUBLE,	// 整数总是为Long，超出范围时为BigInteger；小数为Double
+		BIG_DECIMAL,	// 整数与DEFAULT相同；小数为BigDecimal，不损失精度
+		LEGACY			// 与旧版本相同：整数与DEFAULT相同；小数为Float，带指数时为BigDecimal
+	}
+	
+	// parse返回的树的结构
+	public static enum TREE_MODEL {
+		HASH_MAP,		// HashMap与ArrayList
+		COMPACT,		// JsonObject与JsonArray，数字数组使用long[]/double[]保存
+		LAZY			// LazyObject与LazyArray，嵌套的对象与数组第一次访问时才解析。只对String、byte[]、ByteBuffer输入有效，其他输入按HASH_MAP处理
+	}
+	
+	private boolean lazyStrings;
+	private SymbolTable symbolTable;
+	private NUMBER_POLICY numberPolicy = NUMBER_POLICY.DEFAULT;
+	private TREE_MODEL treeModel = TREE_MODEL.HASH_MAP;
+	private int maxDepth = DEFAULT_MAX_DEPTH;
+	
+	public static final int DEFAULT_MAX_DEPTH = 1024;
+	
+	public boolean isLazyStrings() {
+		return lazyStrings;
+	}
+	
+	/**
+	 * 字符串值以{@link JsonString}的形式放入结果，直到第一次使用时才生成String，适合大部分值都不会被读取的文档。
+	 * 只对String、byte[]、ByteBuffer以及文件输入有效，Reader与InputStream的缓冲区会被覆盖，依然直接生成String。
+	 * 结果中的JsonString会引用整个源数据，在它们生成String之前源数据不会被回收。
+	 */
+	public ParseOptions setLazyStrings(boolean lazyStrings) {
+		this.lazyStrings = lazyStrings;
+		return this;
+	}
+	
+	public SymbolTable getSymbolTable() {
+		return symbolTable;
+	}
+	
+	/**
+	 * 对象成员名从符号表中获取，相同的名字共用一个String，命中时不产生新对象。
+	 * 符号表可以在多次解析之间复用，但不是线程安全的，多线程时每个线程使用自己的ParseOptions与SymbolTable。
+	 */
+	public ParseOptions setSymbolTable(SymbolTable symbolTable) {
+		this.symbolTable = symbolTable;
+		return this;
+	}
+	
+	public NUMBER_POLICY getNumberPolicy() {
+		return numberPolicy;
+	}
+	
+	// 只影响装箱后的类型，JsonReader的getLong与getDouble不受影响
+	public ParseOptions setNumberPolicy(NUMBER_POLICY numberPolicy) {
+		if(numberPolicy == null) throw new NullPointerException();
+		
+		this.numberPolicy = numberPolicy;
+		return this;
+	}
+	
+	public TREE_MODEL getTreeModel() {
+		return treeModel;
+	}
+	
+	public ParseOptions setTreeModel(TREE_MODEL treeModel) {
+		if(treeModel == null) throw new NullPointerException();
+		
+		this.treeModel = treeModel;
+		return this;
+	}
+	
+	public int getMaxDepth() {
+		return maxDepth;
+	}
+	
+	// 对象与数组嵌套的最大层数，超过时解析失败，防止恶意构造的深层文档耗尽内存或者在递归处理结果时栈溢出
+	public ParseOptions setMaxDepth(int maxDepth) {
+		if(maxDepth <= 0) throw new IllegalArgumentException("Max depth must be positive!");
+		
+		this.maxDepth = maxDepth;
+		return this;
+	}
+}
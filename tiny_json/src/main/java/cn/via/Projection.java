@@ -0,0 +1,110 @@
+package cn.via;
+
+import java.util.Arrays;
+
+/**
+ * 解析时的字段投影：只保留给定路径上的值，其余的成员与子树直接跳过，不生成任何对象。
+ * 路径由成员名与[*]组成，成员名之间用点号分隔，[*]表示数组的所有元素，例如：
+ * <pre>
+ * address.city
+ * links[*].url
+ * [*].id          根为数组时
+ * </pre>
+ * 路径指向对象或数组时保留整个子树；对象中不存在的成员直接忽略。
+ * 编译好的投影不可变，可以在多个线程中共用。
+ * @author venia
+ */
+public final class Projection {
+	
+	// 路径树的节点
+	static final class Node {
+		boolean all;					// 整个子树都保留
+		String[] names = new String[0];	// 需要保留的成员
+		Node[] members = new Node[0];
+		Node elements;					// [*]
+		
+		// 当前FIELD_NAME对应的节点，不保留时返回null
+		Node member(JsonReader reader) {
+			if (all) return this;
+			
+			for (int i = 0; i < names.length; i++) {
+				if (reader.matches(names[i])) return members[i];
+			}
+			return null;
+		}
+		
+		// 数组元素对应的节点，不保留时返回null
+		Node element() {
+			return all ? this : elements;
+		}
+		
+		private Node member(String name) {
+			for (int i = 0; i < names.length; i++) {
+				if (names[i].equals(name)) return members[i];
+			}
+			
+			names = Arrays.copyOf(names, names.length + 1);
+			members = Arrays.copyOf(members, members.length + 1);
+			names[names.length - 1] = name;
+			return members[members.length - 1] = new Node();
+		}
+		
+		private Node elements() {
+			if (elements == null) elements = new Node();
+			return elements;
+		}
+	}
+	
+	private final Node root = new Node();
+	private final String[] paths;
+	
+	private Projection(String[] paths) {
+		this.paths = paths.clone();
+		for (String path : paths) {
+			add(path);
+		}
+	}
+	
+	public static Projection of(String... paths) {
+		if (paths.length == 0) throw new IllegalArgumentException("At least one path is required!");
+		return new Projection(paths);
+	}
+	
+	private void add(String path) {
+		Node node = root;
+		int i = 0;
+		int n = path.length();
+		while (i < n) {
+			if (path.startsWith("[*]", i)) {
+				node = node.elements();
+				i += 3;
+			}
+			else {
+				int end = i;
+				while (end < n && path.charAt(end) != '.' && path.charAt(end) != '[') end++;
+				if (end == i) throw new IllegalArgumentException("Bad path: " + path);
+				
+				node = node.member(path.substring(i, end));
+				i = end;
+			}
+			
+			if (i < n && path.charAt(i) == '.') {
+				if (++i == n) throw new IllegalArgumentException("Bad path: " + path);
+			}
+			else if (i < n && path.charAt(i) != '[') {
+				throw new IllegalArgumentException("Bad path: " + path);
+			}
+		}
+		if (node == root) throw new IllegalArgumentException("Bad path: " + path);
+		
+		node.all = true;
+	}
+	
+	Node getRoot() {
+		return root;
+	}
+	
+	public String toString() {
+		return Arrays.toString(paths);
+	}
+}
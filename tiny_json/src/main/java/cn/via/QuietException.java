@@ -0,0 +1,14 @@
+package cn.via;
+
+/**
+ * 只检查语法时的错误：不记录调用栈，创建时不需要遍历栈帧。只在JsonValidator内部抛出并捕获，不会传给调用者。
+ * @author venia
+ */
+final class QuietException extends RuntimeException {
+	
+	private static final long serialVersionUID = 1L;
+	
+	QuietException(String msg) {
+		super(msg, null, false, false);
+	}
+}
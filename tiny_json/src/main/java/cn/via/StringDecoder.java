@@ -0,0 +1,177 @@
+package cn.via;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * 字符串的扫描与转义解码，由各个词法分析器以及JsonString共用。
+ * 扫描UTF-8字节时每次读取8个字节（SWAR），用位运算同时找出结束引号与反斜杠，中间的字节不需要逐个判断。
+ * 没有转义的字符串直接由源数据生成，只有含有反斜杠的字符串才逐个字符解码：
+ * \" \\ \/ \b \f \n \r \t，宽松模式下的 \'，以及 \\uXXXX。\\uD83D\\uDE00 这样的代理对按顺序解码后即为一个补充字符。
+ * 与原来的解析器一样，字符串中未转义的控制字符（小于0x20）按原样接受，扫描时不需要查找它们；JsonWriter输出时会转义。
+ * @author venia
+ */
+final class StringDecoder {
+	
+	private static final long ONES = 0x0101010101010101L;
+	private static final long LOW7 = 0x7F7F7F7F7F7F7F7FL;
+	private static final long BACKSLASHES = ONES * '\\';
+	
+	private StringDecoder() {
+	}
+	
+	// 每个字节都为c的long
+	static long broadcast(int c) {
+		return ONES * (c & 0xff);
+	}
+	
+	// 为0的字节对应位置为0x80，其余为0，没有字节之间的借位，所以结果是精确的
+	private static long zeroBytes(long x) {
+		return ~(((x & LOW7) + LOW7) | x | LOW7);
+	}
+	
+	// 返回 b[from, to) 中第一个sep或反斜杠的位置，没有时返回to。seps为broadcast(sep)
+	static int find(ByteBuffer b, int from, int to, long seps) {
+		boolean bigEndian = b.order() == ByteOrder.BIG_ENDIAN;
+		int i = from;
+		for(; i + 8 <= to; i += 8) {
+			long word = b.getLong(i);
+			long hits = zeroBytes(word ^ seps) | zeroBytes(word ^ BACKSLASHES);
+			if(hits != 0) {
+				return i + ((bigEndian ? Long.numberOfLeadingZeros(hits) : Long.numberOfTrailingZeros(hits)) >>> 3);
+			}
+		}
+		
+		byte sep = (byte) seps;
+		for(; i < to; i++) {
+			byte c = b.get(i);
+			if(c == sep || c == '\\') return i;
+		}
+		return to;
+	}
+	
+	// 返回 c[from, to) 中第一个反斜杠的位置，没有时返回-1。控制字符按原样接受，不在这里检查
+	static int indexOfEscape(char[] c, int from, int to) {
+		for(int i = from; i < to; i++) {
+			if(c[i] == '\\') return i;
+		}
+		return -1;
+	}
+	
+	static int indexOfEscape(ByteBuffer b, int from, int to) {
+		int i = find(b, from, to, BACKSLASHES);
+		return i < to ? i : -1;
+	}
+	
+	// 反斜杠之后的字符对应的字符，不是合法的转义时返回-1，\\u需要另外处理
+	static int unescape(int e) {
+		switch(e) {
+		case '"':
+		case '\\':
+		case '/':
+		case '\'':	return e;
+		case 'b':	return '\b';
+		case 'f':	return '\f';
+		case 'n':	return '\n';
+		case 'r':	return '\r';
+		case 't':	return '\t';
+		default:	return -1;
+		}
+	}
+	
+	static int hex(int c) {
+		if(c >= '0' && c <= '9') return c - '0';
+		if(c >= 'a' && c <= 'f') return c - 'a' + 10;
+		if(c >= 'A' && c <= 'F') return c - 'A' + 10;
+		return -1;
+	}
+	
+	// c[i, i+4)组成的十六进制数，格式错误或长度不足时返回-1
+	private static int hex4(char[] c, int i, int to) {
+		if(i + 4 > to) return -1;
+		return hex(c[i]) << 12 | hex(c[i + 1]) << 8 | hex(c[i + 2]) << 4 | hex(c[i + 3]); // 任何一位为-1时结果都为负数
+	}
+	
+	private static int hex4(ByteBuffer b, int i, int to) {
+		if(i + 4 > to) return -1;
+		return hex(b.get(i)) << 12 | hex(b.get(i + 1)) << 8 | hex(b.get(i + 2)) << 4 | hex(b.get(i + 3));
+	}
+	
+	// 解码 c[from, to)。词法分析器已经检查过转义，这里遇到不合法的转义时原样保留
+	static String decode(char[] c, int from, int to) {
+		int first = indexOfEscape(c, from, to);
+		if(first < 0) {
+			return new String(c, from, to - from);
+		}
+		
+		char[] out = new char[to - from];
+		System.arraycopy(c, from, out, 0, first - from);
+		int n = first - from;
+		
+		for(int i = first; i < to; i++) {
+			char ch = c[i];
+			if(ch != '\\' || i + 1 == to) {
+				out[n++] = ch;
+				continue;
+			}
+			
+			char e = c[++i];
+			int u = e == 'u' ? hex4(c, i + 1, to) : unescape(e);
+			if(u < 0) {
+				out[n++] = '\\';
+				out[n++] = e;
+			}
+			else {
+				out[n++] = (char) u;
+				if(e == 'u') i += 4;
+			}
+		}
+		return new String(out, 0, n);
+	}
+	
+	// 解码UTF-8字节 b[from, to)，同时处理转义。4字节的UTF-8字符生成代理对，不完整的字节序列替换为U+FFFD
+	static String decode(ByteBuffer b, int from, int to) {
+		char[] out = new char[to - from]; // 字符数不会多于字节数
+		int n = 0;
+		
+		int i = from;
+		while(i < to) {
+			int c = b.get(i++);
+			if(c >= 0) {
+				if(c != '\\' || i == to) {
+					out[n++] = (char) c;
+					continue;
+				}
+				
+				int e = b.get(i++);
+				int u = e == 'u' ? hex4(b, i, to) : unescape(e);
+				if(u < 0) {
+					out[n++] = '\\';
+					out[n++] = (char) (e & 0xff);
+				}
+				else {
+					out[n++] = (char) u;
+					if(e == 'u') i += 4;
+				}
+			}
+			else if((c & 0xE0) == 0xC0 && i < to) {
+				out[n++] = (char) ((c & 0x1F) << 6 | b.get(i) & 0x3F);
+				i += 1;
+			}
+			else if((c & 0xF0) == 0xE0 && i + 1 < to) {
+				out[n++] = (char) ((c & 0x0F) << 12 | (b.get(i) & 0x3F) << 6 | b.get(i + 1) & 0x3F);
+				i += 2;
+			}
+			else if((c & 0xF8) == 0xF0 && i + 2 < to) {
+				int cp = (c & 0x07) << 18 | (b.get(i) & 0x3F) << 12 | (b.get(i + 1) & 0x3F) << 6 | b.get(i + 2) & 0x3F;
+				out[n++] = Character.highSurrogate(cp);
+				out[n++] = Character.lowSurrogate(cp);
+				i += 3;
+			}
+			else {
+				out[n++] = '\uFFFD';
+			}
+		}
+		return new String(out, 0, n);
+	}
+}
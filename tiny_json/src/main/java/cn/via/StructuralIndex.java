@@ -0,0 +1,125 @@
+package cn.via;
+
+import java.util.Arrays;
+
+/**
+ * 结构索引：UTF-8输入中字符串以外的 { } [ ] : , 以及所有未转义的双引号（字符串的首尾）的位置，按顺序排列。
+ * 有了索引之后，IndexedTokenizer不需要逐个字节扫描字符串，直接跳到结尾的引号。
+ * 索引由VectorIndexer使用jdk.incubator.vector每次处理32/64个字节生成。VectorIndexer只在vector编译profile中生成，
+ * 运行时也需要 --add-modules jdk.incubator.vector；不满足时build返回null，调用者继续使用逐字节扫描的ByteTokenizer。
+ * 逐字节的实现只用于处理不足一个向量的结尾，以及作为测试时的参照。
+ * 不支持单引号字符串，遇到字符串以外的单引号时同样返回null。
+ * @author venia
+ */
+final class StructuralIndex {
+
+	// 超过这个长度的输入才值得先建立索引
+	static final int THRESHOLD = 1 << 16;
+
+	// 由VectorIndexer实现
+	interface Indexer {
+
+		// 返回 b[from, to) 的索引，最后一个元素为索引的个数；遇到单引号字符串时返回null
+		int[] index(byte[] b, int from, int to);
+	}
+
+	private static final Indexer VECTOR = load();
+
+	private StructuralIndex() {
+	}
+
+	// 可以设置系统属性tinyjson.vector=false关闭
+	private static Indexer load() {
+		if (!Boolean.parseBoolean(System.getProperty("tinyjson.vector", "true"))) {
+			return null;
+		}
+
+		try {
+			Indexer indexer = (Indexer) Class.forName("cn.via.VectorIndexer").getDeclaredConstructor().newInstance();
+			byte[] probe = "{\"a\\\"\":[1, \"x\"]}".getBytes("UTF-8"); // 触发Vector API的加载，并检查结果
+			return Arrays.equals(indexer.index(probe, 0, probe.length), scalar(probe, 0, probe.length)) ? indexer : null;
+		} catch (Throwable t) { // 没有编译VectorIndexer，或者运行时没有jdk.incubator.vector模块
+			return null;
+		}
+	}
+
+	static boolean isVectorized() {
+		return VECTOR != null;
+	}
+
+	// 建立 b[from, to) 的索引，Vector API不可用或者不支持的输入返回null
+	static int[] build(byte[] b, int from, int to) {
+		return VECTOR == null ? null : VECTOR.index(b, from, to);
+	}
+
+	// 逐字节的实现
+	static int[] scalar(byte[] b, int from, int to) {
+		Builder builder = new Builder(to - from);
+		return builder.scan(b, from, to) ? builder.finish() : null;
+	}
+
+	// 生成索引的状态，向量实现在块与块之间以及处理结尾时也使用它
+	static final class Builder {
+
+		int[] index;
+		int count;
+		boolean inString;	// 当前位置在字符串中
+		boolean escaped;	// 当前位置的字符被前面的反斜杠转义
+
+		Builder(int length) {
+			this.index = new int[Math.max(16, length >> 3)];
+		}
+
+		void add(int pos) {
+			if (count == index.length) {
+				index = Arrays.copyOf(index, count * 2);
+			}
+			index[count++] = pos;
+		}
+
+		// 逐字节处理 b[from, to)，遇到字符串以外的单引号时返回false
+		boolean scan(byte[] b, int from, int to) {
+			for (int i = from; i < to; i++) {
+				byte c = b[i];
+				if (inString) {
+					if (escaped) {
+						escaped = false;
+					}
+					else if (c == '\\') {
+						escaped = true;
+					}
+					else if (c == '"') {
+						inString = false;
+						add(i);
+					}
+					continue;
+				}
+
+				switch (c) {
+				case '"':
+					inString = true;
+					add(i);
+					break;
+				case '{':
+				case '}':
+				case '[':
+				case ']':
+				case ':':
+				case ',':
+					add(i);
+					break;
+				case '\'':
+					return false;
+				}
+			}
+			return true;
+		}
+
+		// 最后一个元素为个数
+		int[] finish() {
+			int[] result = Arrays.copyOf(index, count + 1);
+			result[count] = count;
+			return result;
+		}
+	}
+}
@@ -0,0 +1,145 @@
+package cn.via;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * 对象成员名的符号表：相同的名字只生成一个String。
+ * 直接用源数据中的字符区间（或UTF-8字节区间）计算哈希并查找，命中时不会产生任何对象。
+ * 容量有上限，表满之后新的名字不再加入，直接生成String。
+ * 不是线程安全的，一个符号表只能同时被一个解析过程使用。
+ * @author venia
+ */
+public class SymbolTable {
+	
+	public static final int DEFAULT_CAPACITY = 1024;
+	
+	private final String[] names;	// 开放寻址的哈希表，大小为2的幂
+	private final int[] hashes;
+	private final byte[][] utf8;	// 名字的UTF-8编码，用于字节输入的比较
+	private final int capacity;
+	private final int mask;
+	private int size;
+	
+	private long hits;
+	private long misses;
+	
+	public SymbolTable() {
+		this(DEFAULT_CAPACITY);
+	}
+	
+	// capacity为最多保存的名字个数
+	public SymbolTable(int capacity) {
+		if(capacity <= 0 || capacity > (1 << 26)) throw new IllegalArgumentException("Capacity must be in (0, 2^26]!");
+		
+		int n = Integer.highestOneBit(capacity) << 2; // 装载因子不超过1/2
+		this.names = new String[n];
+		this.hashes = new int[n];
+		this.utf8 = new byte[n][];
+		this.capacity = capacity;
+		this.mask = n - 1;
+	}
+	
+	// 查找字符区间 chars[start, end) 对应的名字
+	public String lookup(char[] chars, int start, int end) {
+		int h = 0;
+		for(int i = start; i < end; i++) {
+			h = 31 * h + chars[i];
+		}
+		
+		int i = h & mask;
+		String name = null;
+		while((name = names[i]) != null) {
+			if(hashes[i] == h && equals(name, chars, start, end)) {
+				hits++;
+				return name;
+			}
+			i = (i + 1) & mask;
+		}
+		
+		misses++;
+		name = new String(chars, start, end - start);
+		if(size < capacity) {
+			put(i, h, name, null);
+		}
+		return name;
+	}
+	
+	// 查找UTF-8字节区间 bytes[start, end) 对应的名字，按字节计算哈希，与字符输入的表项互不干扰
+	public String lookup(ByteBuffer bytes, int start, int end) {
+		int h = 1;
+		for(int i = start; i < end; i++) {
+			h = 31 * h + bytes.get(i);
+		}
+		
+		int i = h & mask;
+		String name = null;
+		while((name = names[i]) != null) {
+			if(hashes[i] == h && utf8[i] != null && equals(utf8[i], bytes, start, end)) {
+				hits++;
+				return name;
+			}
+			i = (i + 1) & mask;
+		}
+		
+		misses++;
+		byte[] b = new byte[end - start];
+		for(int k = 0; k < b.length; k++) b[k] = bytes.get(start + k);
+		name = new String(b, StandardCharsets.UTF_8);
+		if(size < capacity) {
+			put(i, h, name, b);
+		}
+		return name;
+	}
+	
+	private void put(int i, int h, String name, byte[] bytes) {
+		names[i] = name;
+		hashes[i] = h;
+		utf8[i] = bytes;
+		size++;
+	}
+	
+	private static boolean equals(String name, char[] chars, int start, int end) {
+		if(name.length() != end - start) return false;
+		for(int i = 0; i < name.length(); i++) {
+			if(name.charAt(i) != chars[start + i]) return false;
+		}
+		return true;
+	}
+	
+	private static boolean equals(byte[] name, ByteBuffer bytes, int start, int end) {
+		if(name.length != end - start) return false;
+		for(int i = 0; i < name.length; i++) {
+			if(name[i] != bytes.get(start + i)) return false;
+		}
+		return true;
+	}
+	
+	// 清空所有名字以及计数
+	public void clear() {
+		for(int i = 0; i < names.length; i++) {
+			names[i] = null;
+			utf8[i] = null;
+		}
+		size = 0;
+		hits = 0;
+		misses = 0;
+	}
+	
+	public int size() {
+		return size;
+	}
+	
+	public int getCapacity() {
+		return capacity;
+	}
+	
+	// 命中次数，命中时没有生成新的String
+	public long getHits() {
+		return hits;
+	}
+	
+	public long getMisses() {
+		return misses;
+	}
+}
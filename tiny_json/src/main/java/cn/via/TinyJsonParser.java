@@ -1,12 +1,22 @@
 package cn.via;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.Stack;
+import java.util.concurrent.ForkJoinPool;
 
-import cn.via.Tokenizer.TAG;
+import cn.via.JsonReader.EVENT;
+import cn.via.ParseOptions.NUMBER_POLICY;
+import cn.via.ParseOptions.TREE_MODEL;
 
 
 /**
@@ -14,406 +24,484 @@ import cn.via.Tokenizer.TAG;
  * @author venia
  */
 public class TinyJsonParser {
-
-	private static enum STATE {
-		BEGIN, END,
-		ARR_BEGIN, ARR_VALUE, ARR_VALUE_SEP, ARR_END,					// ARR is shorter for array, SEP is shorter for separator
-		OBJ_BEGIN, MEM_NAME, MEM_NAME_SEP, MEM_VALUE, MEM_SEP, OBJ_END  // OBJ is shorter for object, MEM is shorter for member
-	}
 	
-	// 上下文状态
-	private static final class Context {
+	// 上下文状态，根据回调构建Map/List
+	static final class Context implements JsonHandler {
+		
+		private static final byte MAP = 1;
+		private static final byte LIST = 2;
 		
 		private Object root = null;		// 根结点，只能是map或者list, object <==> map, array <==> list
-		private STATE state = null;		// 状态
-		private Stack<Object> stack;	// 栈，保存解析过程中的嵌套关系
-		private Tokenizer tkz;
+		private JsonReader reader;
 		
-		private String memName;			// 解析对象过程中，保存键值对的键值
+		// 嵌套关系：kinds为每一层容器的类型，frames为对应的容器。
+		// 栈顶的容器另外按类型保存在map或list中，添加成员时只需要比较kind，不需要instanceof
+		private byte[] kinds = new byte[32];
+		private Object[] frames = new Object[32];
+		private int depth;
 		
-		public Context(Tokenizer k) {
-			this.state = STATE.BEGIN;
-			this.stack = new Stack<>();
-			this.tkz = k;
-		}
+		private byte kind;				// 栈顶容器的类型，栈为空时为0
+		private HashMap<String, Object> map;
+		private ArrayList<Object> list;
 		
-		public void setRoot(Object obj) {
-			if(this.root != null)
-				throw new IllegalStateException("Root had been setted!");
-			
-			if(!(obj instanceof List) && !(obj instanceof Map))
-				throw new IllegalArgumentException("Root must be an array or a map!");
-			
-			this.root = obj;
-			this.stack.push(obj);
+		private String memName;			// 解析对象过程中，保存键值对的键值，用完即清空
+		
+		public Context(JsonReader r) {
+			this.reader = r;
 		}
 		
 		public Object getRoot() {
 			return this.root;
 		}
 		
-		public STATE getState() {
-			return this.state;
+		// 清空状态以便复用，不再引用上次的结果
+		public void reset() {
+			Arrays.fill(frames, 0, depth, null);
+			this.root = null;
+			this.depth = 0;
+			this.kind = 0;
+			this.map = null;
+			this.list = null;
+			this.memName = null;
 		}
 		
-		public void setState(STATE s) {
-			this.state = s;
+		public void startObject() {
+			open(MAP, new HashMap<String, Object>());
 		}
 		
-		public void setMemName(String name) {
-			this.memName = name;
+		public void endObject() {
+			close();
 		}
 		
-		public String getMemName() {
-			return this.memName;
+		public void startArray() {
+			open(LIST, new ArrayList<Object>());
 		}
 		
-		@SuppressWarnings("unchecked")
-		public void setValueMember(String name, Object value) {
-			if (name == null || name.length() == 0)
-				throw new IllegalArgumentException("Name must not be empty!");
-			
-			if (!(stack.peek() instanceof Map))
-				throw new IllegalStateException("Can only set a pair to a map!");
-			
-			((Map<String, Object>) stack.peek()).put(name, value);
+		public void endArray() {
+			close();
 		}
 		
-		@SuppressWarnings("unchecked")
-		public void addValueItem(Object value) {
-			if (!(stack.peek() instanceof List))
-				throw new IllegalStateException("Can only add a value to an array"); 
-			
-			((List<Object>) stack.peek()).add(value);
+		public void key(String name) {
+			this.memName = name;
 		}
 		
-		@SuppressWarnings("unchecked")
-		public void newObjectMember(String name, Map<Object, Object> map) {
-			if (name == null || name.length() == 0)
-				throw new IllegalArgumentException("Name must not be empty!");
-			
-			((Map<String, Object>) stack.peek()).put(name, map);
-			stack.push(map);
+		public void value(CharSequence value) {
+			newValue(value);
 		}
 		
-		@SuppressWarnings("unchecked")
-		public void newObjectItem(Map<Object, Object> map) {
-			((List<Object>) stack.peek()).add(map);
-			stack.push(map);
+		public void value(Number value) {
+			newValue(value);
 		}
 		
-		@SuppressWarnings("unchecked")
-		public void newArrayMember(String name, List<Object> list) {
-			if (name == null || name.length() == 0)
-				throw new IllegalArgumentException("Name must not be empty!");
-			
-			((Map<String, Object>) stack.peek()).put(name, list);
-			stack.push(list);
+		public void value(long value) {
+			if (reader.getOptions().getNumberPolicy() != NUMBER_POLICY.LONG_DOUBLE
+					&& value >= Integer.MIN_VALUE && value <= Integer.MAX_VALUE) {
+				newValue(Integer.valueOf((int) value));
+			}
+			else {
+				newValue(Long.valueOf(value));
+			}
 		}
 		
-		@SuppressWarnings("unchecked")
-		public void newArrayItem(List<Object> list) {
-			((List<Object>) stack.peek()).add(list);
-			stack.push(list);
+		public void value(double value) {
+			newValue(Double.valueOf(value));
 		}
 		
-		public void closeObject() {
-			if (stack.size() == 0)
-				throw new RuntimeException("Bad gramma at row:"
-						+ tkz.getRowCount() + ", col:" + tkz.getColCount() + ".");
+		public void value(boolean value) {
+			newValue(value ? Tokenizer.TRUE : Tokenizer.FALSE);
+		}
+		
+		public void nullValue() {
+			newValue(null);
+		}
+		
+		// 根据当前位置，将容器作为根结点、对象成员或者数组元素，然后入栈
+		private void open(byte k, Object container) {
+			if (depth == 0) {
+				if (root != null)
+					throw new IllegalStateException("Root had been setted!");
+				root = container;
+			}
+			else {
+				newValue(container);
+			}
 			
-			stack.pop();
+			if (depth == kinds.length) {
+				kinds = Arrays.copyOf(kinds, depth * 2);
+				frames = Arrays.copyOf(frames, depth * 2);
+			}
+			kinds[depth] = k;
+			frames[depth++] = container;
+			top(k, container);
 		}
 		
-		public Object getWorkingObject() {
-			if (stack.size() == 0)
+		private void close() {
+			if (depth == 0)
 				throw new RuntimeException("Bad gramma at row:"
-						+ tkz.getRowCount() + ", col:" + tkz.getColCount() + ".");
+						+ reader.getRowCount() + ", col:" + reader.getColCount() + ".");
 			
-			return stack.peek();
+			frames[--depth] = null;
+			if (depth == 0) {
+				top((byte) 0, null);
+			}
+			else {
+				top(kinds[depth - 1], frames[depth - 1]);
+			}
+		}
+		
+		@SuppressWarnings("unchecked")
+		private void top(byte k, Object container) {
+			kind = k;
+			map = k == MAP ? (HashMap<String, Object>) container : null;
+			list = k == LIST ? (ArrayList<Object>) container : null;
 		}
 		
-		public boolean isStackEmpty() {
-			return stack.size() == 0;
+		private void newValue(Object value) {
+			if (memName != null) {
+				if (memName.length() == 0)
+					throw new IllegalArgumentException("Name must not be empty!");
+				if (kind != MAP)
+					throw new IllegalStateException("Can only set a pair to a map!");
+				
+				map.put(memName, value);
+				memName = null;
+			}
+			else {
+				if (kind != LIST)
+					throw new IllegalStateException("Can only add a value to an array");
+				
+				list.add(value);
+			}
 		}
 	}
 	
 	
 	// 主解析方法
 	public static final Object parse(String source) {
-		Tokenizer tkz = new Tokenizer(source);
-		Context ctx = new Context(tkz);
-		return parse(ctx, tkz);
+		return parse(new JsonReader(source));
 	}
 	
-	// 自动状态机
-	private static Object parse(Context ctx, Tokenizer tkz) {
-		TAG tag = null;
-		while ((tag = tkz.peek()) != Tokenizer.TAG.EOF) {
-			
-			switch (ctx.getState()) {
-			case BEGIN:
-				if (tag == TAG.L_BRACE) {
-					ctx.setRoot(new HashMap<>());
-					ctx.setState(STATE.OBJ_BEGIN);
-				}
-				else if (tag == TAG.L_BRACKET) {
-					ctx.setRoot(new ArrayList<>());
-					ctx.setState(STATE.ARR_BEGIN);
-				}
-				else {
-					tkz.printEnv(System.out);
-					throw new RuntimeException("Expected a '{' or '[' at row:" +
-							tkz.getRowCount() + ", col:" + tkz.getColCount() + ".");
-				}
-				break;
-				
-				
-			case END: // do nothing
-				break;
-				
-				
-			case ARR_BEGIN:
-				if (tag == TAG.L_BRACE) {
-					ctx.newObjectItem(new HashMap<>());
-					ctx.setState(STATE.OBJ_BEGIN);
-				}
-				else if (tag == TAG.L_BRACKET) {
-					ctx.newArrayItem(new ArrayList<>());
-					ctx.setState(STATE.ARR_BEGIN);
-				}
-				else if (tag == TAG.R_BRACKET) {
-					ctx.closeObject();
-					ctx.setState(STATE.ARR_END);
-				}
-				else if (tag == TAG.STRING) {
-					ctx.addValueItem(tkz.getToken());
-					ctx.setState(STATE.ARR_VALUE);
-				}
-				else if (tag == TAG.NULL) {
-					ctx.addValueItem(null);
-					ctx.setState(STATE.ARR_VALUE);
-				}
-				else if (tag == TAG.TRUE) {
-					ctx.addValueItem(Tokenizer.TRUE);
-					ctx.setState(STATE.ARR_VALUE);
-				}
-				else if (tag == TAG.FALSE) {
-					ctx.addValueItem(Tokenizer.FALSE);
-					ctx.setState(STATE.ARR_VALUE);
-				}
-				else if (tag == TAG.NUMBER) {
-					ctx.addValueItem(tkz.getNum());
-					ctx.setState(STATE.ARR_VALUE);
-				}
-				else {
-					tkz.printEnv(System.out);
-					throw new RuntimeException("Expect a string or a number or a object at row:"
-							+ tkz.getRowCount() + ", col:" + tkz.getColCount() + ".");
-				}
-				break;
-				
-				
-			case ARR_VALUE:
-				if (tag == TAG.COMMA) {
-					ctx.setState(STATE.ARR_VALUE_SEP);
-				}
-				else if (tag == TAG.R_BRACKET) {
-					ctx.closeObject();
-					ctx.setState(STATE.ARR_END);
-				} else {
-					tkz.printEnv(System.out);
-					throw new RuntimeException("Expect a \",\" or a \"]\" or a object at row:"
-							+ tkz.getRowCount() + ", col:" + tkz.getColCount() + ".");
-				}
-				break;
-				
-				
-			case ARR_VALUE_SEP:
-				if (tag == TAG.L_BRACKET) {
-					ctx.newArrayItem(new ArrayList<>());
-					ctx.setState(STATE.ARR_BEGIN);
-				}
-				else if (tag == TAG.L_BRACE) {
-					ctx.newObjectItem(new HashMap<>());
-					ctx.setState(STATE.OBJ_BEGIN);
-				}
-				else if (tag == TAG.STRING) {
-					ctx.addValueItem(tkz.getToken());
-					ctx.setState(STATE.ARR_VALUE);
-				}
-				else if (tag == TAG.NULL) {
-					ctx.addValueItem(null);
-					ctx.setState(STATE.ARR_VALUE);
-				}
-				else if (tag == TAG.TRUE) {
-					ctx.addValueItem(Tokenizer.TRUE);
-					ctx.setState(STATE.ARR_VALUE);
-				}
-				else if (tag == TAG.FALSE) {
-					ctx.addValueItem(Tokenizer.FALSE);
-					ctx.setState(STATE.ARR_VALUE);
-				}
-				else if (tag == TAG.NUMBER) {
-					ctx.addValueItem(tkz.getNum());
-					ctx.setState(STATE.ARR_VALUE);
-				}
-				else {
-					tkz.printEnv(System.out);
-					throw new RuntimeException("Expect a string or a number or a object at row:"
-							+ tkz.getRowCount() + ", col:" + tkz.getColCount() + ".");
-				}
-				break;
-				
-				
-			case ARR_END:
-				if (tag == TAG.R_BRACKET) {
-					ctx.closeObject();
-					ctx.setState(STATE.ARR_END);
-				}
-				else if (tag == TAG.R_BRACE) {
-					ctx.closeObject();
-					ctx.setState(STATE.OBJ_END);
-				}
-				else if (tag == TAG.COMMA) {
-					Object o = ctx.getWorkingObject();
-					if (o instanceof List) {
-						ctx.setState(STATE.ARR_VALUE_SEP);
-					}
-					else {
-						ctx.setState(STATE.MEM_SEP);
-					}
-				}
-				else {
-					tkz.printEnv(System.out);
-					throw new RuntimeException("Expected a ']' or '}' at row:"
-							+ tkz.getRowCount() + ", col:" + tkz.getColCount() + ".");
-				}
-				break;
-				
-				
-			case OBJ_BEGIN:
-				if (tag == TAG.STRING) {
-					ctx.setMemName(tkz.getToken());
-					ctx.setState(STATE.MEM_NAME);
-				}
-				else if (tag == TAG.R_BRACE) {
-					ctx.closeObject();
-					ctx.setState(STATE.OBJ_END);
-				}
-				else {
-					tkz.printEnv(System.out);
-					throw new RuntimeException("Expected a \"string\" at row:" + tkz.getRowCount() + ", col:" + tkz.getColCount() + ".");
-				}
-				break;
-				
-				
-			case MEM_NAME:
-				if (tag == TAG.COLON) {
-					ctx.setState(STATE.MEM_NAME_SEP);
-				}
-				else {
-					tkz.printEnv(System.out);
-					throw new RuntimeException("Expected a \":\" at at row:" + tkz.getRowCount() + ", col:" + tkz.getColCount() + ".");
-				}
-				break;
-				
-				
-			case MEM_NAME_SEP:
-				if (tag == TAG.L_BRACKET) {
-					ctx.newArrayMember(ctx.getMemName(), new ArrayList<>());
-					ctx.setState(STATE.ARR_BEGIN);
-				}
-				else if (tag == TAG.L_BRACE) {
-					ctx.newObjectMember(ctx.getMemName(), new HashMap<>());
-					ctx.setState(STATE.OBJ_BEGIN);
-				}
-				else if (tag == TAG.STRING) {
-					ctx.setValueMember(ctx.getMemName(), tkz.getToken());
-					ctx.setState(STATE.MEM_VALUE);
-				}
-				else if (tag == TAG.NULL) {
-					ctx.setValueMember(ctx.getMemName(), null);
-					ctx.setState(STATE.MEM_VALUE);
-				}
-				else if (tag == TAG.FALSE) {
-					ctx.setValueMember(ctx.getMemName(), Tokenizer.FALSE);
-					ctx.setState(STATE.MEM_VALUE);
-				}
-				else if (tag == TAG.TRUE) {
-					ctx.setValueMember(ctx.getMemName(), Tokenizer.TRUE);
-					ctx.setState(STATE.MEM_VALUE);
-				}
-				else if (tag == TAG.NUMBER) {
-					ctx.setValueMember(ctx.getMemName(), tkz.getNum());
-					ctx.setState(STATE.MEM_VALUE);
-				}
-				else {
-					tkz.printEnv(System.out);
-					throw new RuntimeException("Expected a value at at row:" + tkz.getRowCount() + ", col:" + tkz.getColCount() + ".");
-				}
-				break;
-				
-				
-			case MEM_VALUE:
-				if (tag == TAG.R_BRACE) {
-					ctx.closeObject();
-					ctx.setState(STATE.OBJ_END);
-				}
-				else if (tag == TAG.COMMA) {
-					ctx.setState(STATE.MEM_SEP);
+	// 边读边解析，内存占用为缓冲区大小加上解析结果，不需要先把整个输入读成字符串
+	public static final Object parse(Reader reader) {
+		return parse(new JsonReader(reader));
+	}
+	
+	// 输入按UTF-8解码
+	public static final Object parse(InputStream in) {
+		return parse(new JsonReader(in));
+	}
+	
+	// 直接解析UTF-8字节，字符串只在放入结果时才解码
+	public static final Object parse(byte[] source) {
+		return parse(new JsonReader(lexer(source)));
+	}
+	
+	// 解析 buffer 的 position 到 limit 之间的UTF-8字节，支持堆外内存，不改变buffer的position
+	public static final Object parse(ByteBuffer source) {
+		return parse(new JsonReader(source));
+	}
+	
+	// 带选项的解析，见ParseOptions
+	public static final Object parse(String source, ParseOptions options) {
+		if (options.getTreeModel() == TREE_MODEL.LAZY) {
+			return LazySource.parse(source.toCharArray(), null, options);
+		}
+		// 延迟生成的字符串是源数据上的视图，需要整个源串；否则长字符串按块读取
+		Tokenizer tkz = options.isLazyStrings() ? new Tokenizer(source.toCharArray()) : new Tokenizer(source);
+		return parse(new JsonReader(tkz, options));
+	}
+	
+	public static final Object parse(byte[] source, ParseOptions options) {
+		if (options.getTreeModel() == TREE_MODEL.LAZY) {
+			return LazySource.parse(null, ByteBuffer.wrap(source), options);
+		}
+		return parse(new JsonReader(lexer(source), options));
+	}
+	
+	// 大文档在Vector API可用时先建立结构索引，见StructuralIndex
+	private static Lexer lexer(byte[] source) {
+		if (source.length >= StructuralIndex.THRESHOLD) {
+			int[] index = StructuralIndex.build(source, 0, source.length);
+			if (index != null) {
+				return new IndexedTokenizer(source, index);
+			}
+		}
+		return new ByteTokenizer(source);
+	}
+	
+	public static final Object parse(ByteBuffer source, ParseOptions options) {
+		if (options.getTreeModel() == TREE_MODEL.LAZY) {
+			return LazySource.parse(null, source.duplicate(), options);
+		}
+		return parse(new JsonReader(new ByteTokenizer(source), options));
+	}
+	
+	// 以内存映射的方式解析文件，不需要先把文件读入堆内存，超过2G的文件按窗口映射
+	public static final Object parseFile(Path path) throws IOException {
+		try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+			return parse(new JsonReader(new ByteTokenizer(channel)));
+		}
+	}
+	
+	public static final Object parseFile(Path path, ParseOptions options) throws IOException {
+		try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+			return parse(new JsonReader(new ByteTokenizer(channel), options));
+		}
+	}
+	
+	// 只检查是否为合法的JSON，不生成结果，使用线程本地的JsonValidator；出错的位置与信息可以通过JsonValidator获取
+	public static final boolean validate(String source) {
+		return JsonValidator.local().validate(source);
+	}
+	
+	public static final boolean validate(byte[] source) {
+		return JsonValidator.local().validate(source);
+	}
+	
+	// 只生成扁平的token带，不创建Map/List，见JsonTape
+	public static final JsonTape parseTape(String source) {
+		char[] chars = source.toCharArray();
+		return JsonTape.build(new JsonReader(new Tokenizer(chars)), chars, null);
+	}
+	
+	public static final JsonTape parseTape(byte[] source) {
+		return parseTape(ByteBuffer.wrap(source));
+	}
+	
+	// 解析期间以及之后使用token带时，buffer的内容都不能修改
+	public static final JsonTape parseTape(ByteBuffer source) {
+		ByteBuffer bytes = source.duplicate();
+		return JsonTape.build(new JsonReader(new ByteTokenizer(bytes)), null, bytes);
+	}
+	
+	// 只保留投影中的路径，其余的成员与子树直接跳过，见Projection
+	public static final Object parse(String source, Projection projection) {
+		return parse(new JsonReader(source), projection);
+	}
+	
+	public static final Object parse(Reader reader, Projection projection) {
+		return parse(new JsonReader(reader), projection);
+	}
+	
+	public static final Object parse(byte[] source, Projection projection) {
+		return parse(new JsonReader(lexer(source)), projection);
+	}
+	
+	// 直接绑定到类或者record，不生成中间的Map/List，见Binder
+	public static final <T> T parse(String source, Class<T> type) {
+		return Binder.bind(new JsonReader(source), type);
+	}
+	
+	public static final <T> T parse(Reader reader, Class<T> type) {
+		return Binder.bind(new JsonReader(reader), type);
+	}
+	
+	public static final <T> T parse(byte[] source, Class<T> type) {
+		return Binder.bind(new JsonReader(lexer(source)), type);
+	}
+	
+	// 从reader的当前位置读取一个完整的文档，可以通过ParseOptions设置NUMBER_POLICY、lazyStrings等
+	public static final <T> T parse(JsonReader reader, Class<T> type) {
+		return Binder.bind(reader, type);
+	}
+	
+	/**
+	 * 根为数组时，先预扫描出第一层元素的区间，再在ForkJoinPool.commonPool()中并行解析各个元素。
+	 * 适合由大量元素组成的大文档，根不是数组时与parse相同。
+	 */
+	public static final Object parseParallel(String source) {
+		return parseParallel(source, new ParseOptions(), ForkJoinPool.commonPool());
+	}
+	
+	// options中不能设置SymbolTable；TREE_MODEL.LAZY按HASH_MAP处理
+	public static final Object parseParallel(String source, ParseOptions options, ForkJoinPool pool) {
+		return ParallelArrayParser.parse(source.toCharArray(), null, options, pool);
+	}
+	
+	public static final Object parseParallel(byte[] source) {
+		return parseParallel(source, new ParseOptions(), ForkJoinPool.commonPool());
+	}
+	
+	public static final Object parseParallel(byte[] source, ParseOptions options, ForkJoinPool pool) {
+		return ParallelArrayParser.parse(null, source, options, pool);
+	}
+	
+	// 根据JsonReader产生的事件构建Map/List，语法检查由JsonReader中的状态机完成
+	static Object parse(JsonReader reader) {
+		return parse(reader, (Projection) null);
+	}
+	
+	private static Object parse(JsonReader reader, Projection projection) {
+		if (reader.getOptions().getTreeModel() == TREE_MODEL.COMPACT) {
+			CompactBuilder builder = new CompactBuilder(reader.getOptions().getNumberPolicy());
+			parse(reader, builder, projection);
+			return builder.getRoot();
+		}
+		
+		Context ctx = new Context(reader);
+		parse(reader, ctx, projection);
+		return ctx.getRoot();
+	}
+	
+	// 推模式解析，不构建任何Map/List，每个事件都回调handler
+	public static final void parse(String source, JsonHandler handler) {
+		parse(new JsonReader(source), handler);
+	}
+	
+	public static final void parse(Reader reader, JsonHandler handler) {
+		parse(new JsonReader(reader), handler);
+	}
+	
+	public static final void parse(InputStream in, JsonHandler handler) {
+		parse(new JsonReader(in), handler);
+	}
+	
+	public static final void parse(byte[] source, JsonHandler handler) {
+		parse(new JsonReader(source), handler);
+	}
+	
+	public static final void parse(ByteBuffer source, JsonHandler handler) {
+		parse(new JsonReader(source), handler);
+	}
+	
+	// 将reader中剩余的事件逐个分发给handler
+	public static final void parse(JsonReader reader, JsonHandler handler) {
+		EVENT e = null;
+		while ((e = reader.next()) != EVENT.END_DOCUMENT) {
+			dispatch(e, reader, handler);
+		}
+	}
+	
+	/**
+	 * 只把投影中路径上的事件分发给handler，projection为null时与parse(reader, handler)相同。
+	 * 不需要的成员不会生成成员名，不需要的对象与数组只做括号匹配直接跳过，其中的语法错误不会被发现。
+	 */
+	public static final void parse(JsonReader reader, JsonHandler handler, Projection projection) {
+		if (projection == null) {
+			parse(reader, handler);
+			return;
+		}
+		
+		Projection.Node[] nodes = new Projection.Node[32];	// 每一层容器对应的路径节点
+		boolean[] arrays = new boolean[32];
+		int depth = 0;
+		Projection.Node member = null;						// 当前成员值对应的路径节点
+		String name = null;									// 当前成员名，确定保留成员值之后才交给handler
+		
+		EVENT e = null;
+		while ((e = reader.next()) != EVENT.END_DOCUMENT) {
+			Projection.Node node;
+			switch (e) {
+			case FIELD_NAME:
+				member = nodes[depth - 1].member(reader);
+				if (member == null) {
+					reader.next();
+					reader.skipRaw(); // 标量值直接忽略
 				}
 				else {
-					tkz.printEnv(System.out);
-					throw new RuntimeException("Expected a \",\" or \"}\" at at row:" + tkz.getRowCount() + ", col:" + tkz.getColCount() + ".");
+					name = reader.getString();
 				}
+				continue;
+			
+			case END_OBJECT:
+			case END_ARRAY:
+				depth--;
+				dispatch(e, reader, handler);
+				continue;
+			
+			default:
 				break;
-				
-				
-			case MEM_SEP:
-				if (tag == TAG.STRING) {
-					ctx.setMemName(tkz.getToken());
-					ctx.setState(STATE.MEM_NAME);
-				}
-				else {
-					tkz.printEnv(System.out);
-					throw new RuntimeException("Expected a \"string\" at at row:" + tkz.getRowCount() + ", col:" + tkz.getColCount() + ".");
+			}
+			
+			// 值所对应的路径节点
+			if (depth == 0) node = projection.getRoot();
+			else if (arrays[depth - 1]) node = nodes[depth - 1].element();
+			else node = member;
+			
+			boolean keyed = depth > 0 && !arrays[depth - 1]; // 对象成员的值，需要先输出成员名
+			if (e == EVENT.START_OBJECT || e == EVENT.START_ARRAY) {
+				if (node == null) {
+					reader.skipRaw();
+					continue;
 				}
-				break;
 				
-			case OBJ_END:
-				if (tag == TAG.R_BRACKET) {
-					ctx.closeObject();
-					ctx.setState(STATE.ARR_END);
-				}
-				else if (tag == TAG.R_BRACE) {
-					ctx.closeObject();
-					ctx.setState(STATE.OBJ_END);
-				}
-				else if (tag == TAG.COMMA) {
-					Object o = ctx.getWorkingObject();
-					if (o instanceof List) {
-						ctx.setState(STATE.ARR_VALUE_SEP);
-					}
-					else {
-						ctx.setState(STATE.MEM_SEP);
-					}
-				}
-				else {
-					tkz.printEnv(System.out);
-					throw new RuntimeException("Bad gramma at at row:" + tkz.getRowCount() + ", col:" + tkz.getColCount() + ".");
-				}
-				break;
+				if (depth == nodes.length) {
+					nodes = Arrays.copyOf(nodes, depth * 2);
+					arrays = Arrays.copyOf(arrays, depth * 2);
+				}
+				nodes[depth] = node;
+				arrays[depth++] = e == EVENT.START_ARRAY;
+				if (keyed) handler.key(name);
+				dispatch(e, reader, handler);
+			}
+			else if (node != null && node.all) { // 路径中间的标量不在投影中，成员名也一起丢弃
+				if (keyed) handler.key(name);
+				dispatch(e, reader, handler);
 			}
-			
-			tkz.swallow(tag);
 		}
+	}
+	
+	static void dispatch(EVENT e, JsonReader reader, JsonHandler handler) {
+		switch (e) {
+		case START_OBJECT:
+			handler.startObject();
+			break;
+		
+		case START_ARRAY:
+			handler.startArray();
+			break;
+		
+		case END_OBJECT:
+			handler.endObject();
+			break;
+		
+		case END_ARRAY:
+			handler.endArray();
+			break;
+		
+		case FIELD_NAME:
+			handler.key(reader.getString());
+			break;
+		
+		case VALUE_STRING:
+			handler.value(reader.getCharSequence());
+			break;
 		
-		if (!ctx.isStackEmpty()) {
-			throw new RuntimeException("The object or array is not closed.");
+		case VALUE_NUMBER:
+			number(reader, handler);
+			break;
+		
+		case VALUE_TRUE:
+			handler.value(true);
+			break;
+		
+		case VALUE_FALSE:
+			handler.value(false);
+			break;
+		
+		case VALUE_NULL:
+			handler.nullValue();
+			break;
+		
+		default:
+			break;
+		}
+	}
+	
+	// 数字尽量通过原始类型回调，只有需要BigInteger、BigDecimal、Float时才装箱
+	private static void number(JsonReader reader, JsonHandler handler) {
+		if (reader.isIntegral()) {
+			handler.value(reader.getLong());
+			return;
 		}
 		
-		return ctx.getRoot();
+		NUMBER_POLICY policy = reader.getOptions().getNumberPolicy();
+		if (reader.isDecimal() && (policy == NUMBER_POLICY.DEFAULT || policy == NUMBER_POLICY.LONG_DOUBLE)) {
+			handler.value(reader.getDouble());
+		}
+		else {
+			handler.value((Number) reader.getNumber());
+		}
 	}
 	
 	/**
@@ -424,60 +512,55 @@ public class TinyJsonParser {
 	public static String getPrintString(Object root) {
 		if(root == null) return "";
 		
+		StringBuilder sb = new StringBuilder();
 		if(root instanceof List) {
-			return convertListToString((List<?>)root, "");
+			convertListToString(sb, (List<?>)root, "");
 		}
 		else {
-			return convertMapToString((Map<?, ?>)root, "");
+			convertMapToString(sb, (Map<?, ?>)root, "");
 		}
+		return sb.toString();
 	}
 	
-	private static String convertMapToString(Map<?, ?> map, String tap) {
-		StringBuilder sb = new StringBuilder();
+	// 所有层共用一个StringBuilder，不再为每一层生成中间字符串
+	private static void convertMapToString(StringBuilder sb, Map<?, ?> map, String tap) {
 		String innertap = tap+"\t";
 		
 		sb.append("{");
 		map.forEach((k,v) -> {
 			sb.append("\r\n").append(innertap).append(k).append(":");
-			
-			if(v instanceof Map) sb.append(convertMapToString((Map<?, ?>)v, innertap));
-			else if(v instanceof List) sb.append(convertListToString((List<?>)v, innertap));
-			else sb.append(v.toString());
-			
+			convertValueToString(sb, v, innertap);
 			sb.append(',');
 		});
 		
 		if(sb.charAt(sb.length()-1) == ',') {
-			sb.deleteCharAt(sb.length()-1);
-			sb.append("\r\n").append(tap).append("}");
-			return sb.toString();
-		} else {
-			return sb.append("}").toString();
+			sb.setLength(sb.length()-1);
+			sb.append("\r\n").append(tap);
 		}
+		sb.append("}");
 	}
-
-	private static String convertListToString(List<?> list, String tap) {
-		StringBuilder sb = new StringBuilder();
+	
+	private static void convertListToString(StringBuilder sb, List<?> list, String tap) {
 		String innertap = tap+"\t";
 		
 		sb.append("[");
 		list.forEach(i -> {
 			sb.append("\r\n").append(innertap);
-			
-			if(i instanceof Map) sb.append(convertMapToString((Map<?, ?>)i, innertap));
-			else if(i instanceof List) sb.append(convertListToString((List<?>)i, innertap));
-			else sb.append(i.toString());
-			
+			convertValueToString(sb, i, innertap);
 			sb.append(',');
 		});
 		
 		if(sb.charAt(sb.length()-1) == ',') {
-			sb.deleteCharAt(sb.length()-1);
-			sb.append("\r\n").append(tap).append("]");
-			return sb.toString();
-		} else {
-			return sb.append("]").toString();
+			sb.setLength(sb.length()-1);
+			sb.append("\r\n").append(tap);
 		}
+		sb.append("]");
 	}
 	
+	private static void convertValueToString(StringBuilder sb, Object v, String tap) {
+		if(v instanceof Map) convertMapToString(sb, (Map<?, ?>)v, tap);
+		else if(v instanceof List) convertListToString(sb, (List<?>)v, tap);
+		else sb.append(v);
+	}
+
 }
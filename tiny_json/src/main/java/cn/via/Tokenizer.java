@@ -1,13 +1,21 @@
 package cn.via;
 
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
 import java.io.OutputStream;
-import java.math.BigDecimal;
+import java.io.Reader;
+import java.io.StringReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import cn.via.ParseOptions.NUMBER_POLICY;
 
 /**
  * @author venia
  */
-public class Tokenizer {
+public class Tokenizer implements Lexer {
 	
 	public static enum TAG {
 		SOF, EOF,				// 开始 结束 
@@ -19,53 +27,166 @@ public class Tokenizer {
 		TRUE,			  		// true
 		FALSE,					// false
 		NULL,					// null
-		NUMBER					// int float bignumber(eg:12e+10)
+		NUMBER,					// int long double bignumber(eg:12e+10)
+		INCOMPLETE				// 增量解析时数据不足，需要更多的输入
 	}
 	
 	public static final Boolean TRUE = new Boolean(true);
 	public static final Boolean FALSE = new Boolean(false);
 	
-	private String src;
-	private int pos;
-	private int length;
+	public static final int DEFAULT_BUFFER_SIZE = 8192;
+	private static final int MAX_COPY = 1 << 16;	// 更长的字符串按块读取，不复制整个源串
+	
+	private char[] buf;		// 字符缓冲区，字符串模式下即为整个源串
+	private int pos;		// 当前读取位置
+	private int limit;		// 缓冲区中有效字符的结尾
+	
+	private Reader in;		// 流模式下的数据来源，字符串模式下为null
+	private boolean eof;
+	private long offset;	// buf[0]在整个输入中的位置，流模式下丢弃数据时增加
+	
+	private TAG peeked;		// peek的结果，swallow之前重复调用peek不会重新扫描
+	private int tokenStart;	// 当前token在buf中的起止位置，字符串不含引号
+	private int tokenEnd;
+	private int next;		// 吃掉当前token后的读取位置
 	
-	private String token;
-	private Object num;
+	private String token;	// 按需生成
+	private boolean escaped;	// 当前的字符串含有转义，需要解码
+	private final NumberParser num = new NumberParser();
+	private boolean quiet;	// 出错时不打印环境，JsonValidator使用
 	
 	private int rowCount;
 	private int colCount;
 	
+	// 短字符串复制一份作为缓冲区，字符串token可以延迟生成；长字符串按流模式每次getChars一块，峰值内存不会翻倍
 	public Tokenizer(String src) {
-		if(src == null) throw new NullPointerException();
+		if(src.length() > MAX_COPY) {
+			open(new StringReader(src), DEFAULT_BUFFER_SIZE);
+		}
+		else {
+			reset(src.toCharArray(), 0, src.length());
+		}
+	}
+	
+	// 直接使用src作为缓冲区，不复制
+	Tokenizer(char[] src) {
+		this(src, 0, src.length);
+	}
+	
+	// 只解析 src[start, end)，token的位置依然是在src中的下标
+	Tokenizer(char[] src, int start, int end) {
+		reset(src, start, end);
+	}
+	
+	public Tokenizer(Reader in) {
+		this(in, DEFAULT_BUFFER_SIZE);
+	}
+	
+	// 流模式：从reader中按需读取，内存占用只与缓冲区大小以及最长的token有关
+	public Tokenizer(Reader in, int bufferSize) {
+		if(in == null) throw new NullPointerException();
+		if(bufferSize <= 0) throw new IllegalArgumentException("Buffer size must be positive!");
 		
-		this.src = src;
+		open(in, bufferSize);
+	}
+	
+	private void open(Reader in, int bufferSize) {
+		this.buf = new char[bufferSize];
 		this.pos = 0;
-		this.length = src.length();
+		this.limit = 0;
+		this.in = in;
+		this.eof = false;
 		this.token = null;
 		
 		this.rowCount = 1;
 		this.colCount = 1;
 	}
 	
-	// 使用peek方法查看下一个token的类型，使用getToken可以获取下一个token
+	// 按UTF-8读取字节流
+	public Tokenizer(InputStream in) {
+		this(new InputStreamReader(in, StandardCharsets.UTF_8), DEFAULT_BUFFER_SIZE);
+	}
+	
+	// 改为解析 src[start, end)，所有状态恢复为初始值，供JsonParser复用
+	void reset(char[] src, int start, int end) {
+		this.buf = src;
+		this.pos = start;
+		this.limit = end;
+		this.in = null;
+		this.eof = true;
+		this.offset = 0;
+		this.peeked = null;
+		this.token = null;
+		this.escaped = false;
+		
+		this.rowCount = 1;
+		this.colCount = 1;
+	}
+	
+	// 只检查语法：出错时不打印环境，数字只检查格式不计算数值，供JsonValidator使用
+	void setValidating(boolean validating) {
+		this.quiet = validating;
+		num.syntaxOnly = validating;
+	}
+	
+	// 确保 buf[pos+n] 可读，必要时从reader中补充数据；返回false表示输入已经结束
+	private boolean ensure(int n) {
+		while(pos + n >= limit) {
+			if(!fill()) return false;
+		}
+		return true;
+	}
+	
+	// 丢弃pos之前已经处理过的数据，再从reader中读入一批字符
+	private boolean fill() {
+		if(eof) return false;
+		
+		if(pos > 0) {
+			System.arraycopy(buf, pos, buf, 0, limit - pos);
+			limit -= pos;
+			offset += pos;
+			pos = 0;
+		}
+		if(limit == buf.length) { // 单个token比缓冲区还长，只能扩容
+			buf = Arrays.copyOf(buf, buf.length * 2);
+		}
+		
+		try {
+			int count = in.read(buf, limit, buf.length - limit);
+			if(count == -1) {
+				eof = true;
+				return false;
+			}
+			limit += count;
+			return true;
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+	
+	// 使用peek方法查看下一个token的类型，使用getToken可以获取下一个token。
+	// 每个token只扫描一次，swallow之前重复调用peek直接返回上次的结果
 	public TAG peek() {
-		if(pos >= length) {
-			return TAG.EOF;
+		if(peeked != null) {
+			return peeked;
 		}
 		
 		char charAt = '\0';
 		
 		while(true) { // 有空白字符时重复读，直到非空字符
+			if(!ensure(0)) {
+				return TAG.EOF;
+			}
 			
-			charAt = src.charAt(pos);
+			charAt = buf[pos];
 			switch(charAt) {
-			case '{': return TAG.L_BRACE;
-			case '}': return TAG.R_BRACE;
-			case '[': return TAG.L_BRACKET;
-			case ']': return TAG.R_BRACKET;
-			case ',': return TAG.COMMA;
-			case ';': return TAG.SEMICOLON;
-			case ':': return TAG.COLON;
+			case '{': return single(TAG.L_BRACE);
+			case '}': return single(TAG.R_BRACE);
+			case '[': return single(TAG.L_BRACKET);
+			case ']': return single(TAG.R_BRACKET);
+			case ',': return single(TAG.COMMA);
+			case ';': return single(TAG.SEMICOLON);
+			case ':': return single(TAG.COLON);
 			
 			case ' ':
 			case '\t': {
@@ -75,7 +196,7 @@ public class Tokenizer {
 			
 			case '\r': {
 				pos++; // 跳过换行符
-				if('\n' == src.charAt(pos)) pos++; // 处理 \r\n 这种情况
+				if(ensure(0) && '\n' == buf[pos]) pos++; // 处理 \r\n 这种情况
 				rowCount++;
 				colCount=0;
 				break;
@@ -88,103 +209,196 @@ public class Tokenizer {
 			}
 			
 			case '\"': {
-				token = readString('\"');
-				return TAG.STRING;
+				scanString('\"');
+				return peeked = TAG.STRING;
 			}
 			case '\'': {
-				token = readString('\'');
-				return TAG.STRING;
+				scanString('\'');
+				return peeked = TAG.STRING;
 			}
 			
 			default: {
-				token = readCharSequence();
-				token = token.toLowerCase();
-				if ("true".equals(token)) {
-					return TAG.TRUE;
-				}
-				else if ("false".equals(token)) {
-					return TAG.FALSE;
-				}
-				else if ("null".equals(token)) {
-					return TAG.NULL;
-				}
-				else {
-					// treat as a number
-					try {
-						if (token.contains("e")) {
-							num = new BigDecimal(token);
-						} else if (token.contains(".")) {
-							num = Float.parseFloat(token);
-						} else {
-							num = Integer.parseInt(token);
-						}
-						return TAG.NUMBER;
-					} catch (Exception e) {
-						printEnv(System.out);
-						throw new RuntimeException("Bad gramma at row:"
-								+ getRowCount() + ", col:" + getColCount() + ".");
-					}
-				}
+				return peeked = scanLiteral();
 			}
 			}
 		}
 	}
 	
-	// 读取一个字符串，返回："string" | 'string'
-	private String readString(char sep) {
-		int start = pos;
-		int end = start+1; // 首字符为 " 或者 '，直接跳过
+	private TAG single(TAG tag) {
+		tokenStart = pos;
+		tokenEnd = pos + 1;
+		next = pos + 1;
+		return peeked = tag;
+	}
+	
+	// 扫描一个字符串："string" | 'string'，只记录位置并检查转义，解码在getToken时进行
+	private void scanString(char sep) {
+		int end = 1; // 首字符为 " 或者 '，直接跳过。end为相对pos的偏移，缓冲区补充数据后依然有效
+		boolean closed = false;
+		escaped = false;
 		
-		while(end < length) {
-			char c = src.charAt(end);
+		while(ensure(end)) {
+			int i = pos + end;
+			char c = buf[i];
+			while(c != sep && c != '\\' && ++i < limit) c = buf[i]; // 缓冲区中的普通字符直接跳过
+			end = i - pos;
+			if(i == limit) continue;
 			end++;
 			
-			if(c == sep)
+			if(c == sep) {
+				closed = true;
 				break;
-			else if(c == '\\') { // 转义
-				if('u' == src.charAt(end)) { // 处理 \u004a
-					end += 5;
-				}
-				else { // 处理 \" \\ \/ \b \f \n \r \t
-					end++;
+			}
+			
+			escaped = true; // 处理 \" \\ \/ \b \f \n \r \t 以及 \u004a
+			if(!ensure(end)) break;
+			if('u' == buf[pos + end]) {
+				if(!ensure(end + 4)) break;
+				for(int k = 1; k <= 4; k++) {
+					if(StringDecoder.hex(buf[pos + end + k]) < 0) badEscape();
 				}
+				end += 5;
+			}
+			else if(StringDecoder.unescape(buf[pos + end]) < 0) {
+				badEscape();
+			}
+			else {
+				end++;
 			}
 		}
 		
-		if(end > length) {
-			printEnv(System.out);
-			throw new RuntimeException("Bad grammar at row:" + getRowCount() + ", col:" + getColCount() + ".");
+		if(!closed && !ensure(end - 1)) {
+			throw error("Bad grammar at row:");
 		}
 		
-		if(src.charAt(end - 1) != sep) {
-			printEnv(System.out);
-			throw new RuntimeException("Expect a " + sep + " at row:" + getRowCount() + ", col:" + getColCount() + ".");
+		if(!closed) {
+			throw error("Expect a " + sep + " at row:");
 		}
-			
-		return new String(src.substring(start+1, end-1)); // 去掉首位的引号
+		
+		tokenStart = pos + 1; // 去掉首位的引号
+		tokenEnd = pos + end - 1;
+		next = pos + end;
 	}
 	
-	private String readCharSequence() {
-		int start = pos;
-		int end = start+1; // 首字符位其他類型字符
+	private void badEscape() {
+		throw error("Bad escape at row:");
+	}
+	
+	// msg以"at row:"结尾，补上当前的位置；只检查语法时不打印环境，异常也不记录调用栈
+	private RuntimeException error(String msg) {
+		msg = msg + getRowCount() + ", col:" + getColCount() + ".";
+		if(quiet) return new QuietException(msg);
 		
-		while(end < length) {
-			char c = src.charAt(end);
-			if(c == '}' || c == ']' || c == ',' || c == ' ' || c == '\r' || c == '\n') break;
+		printEnv(System.out);
+		return new RuntimeException(msg);
+	}
+	
+	// true false null（不区分大小写）以及数字
+	private TAG scanLiteral() {
+		int end = 1; // 首字符位其他類型字符
+		
+		while(ensure(end)) {
+			char c = buf[pos + end];
+			if(c == '}' || c == ']' || c == ',' || c == ' ' || c == '\t' || c == '\r' || c == '\n') break;
 			end++;
 		}
 		
-		return new String(src.substring(start, end));
+		tokenStart = pos;
+		tokenEnd = pos + end;
+		next = pos + end;
+		
+		if (isWord("true")) {
+			return TAG.TRUE;
+		}
+		else if (isWord("false")) {
+			return TAG.FALSE;
+		}
+		else if (isWord("null")) {
+			return TAG.NULL;
+		}
+		
+		// treat as a number
+		if (!num.parse(buf, tokenStart, tokenEnd)) {
+			throw error("Bad gramma at row:");
+		}
+		return TAG.NUMBER;
+	}
+	
+	// 当前token是否为给定的小写单词，不区分大小写
+	private boolean isWord(String word) {
+		if(tokenEnd - tokenStart != word.length()) return false;
+		
+		for(int i = 0; i < word.length(); i++) {
+			if(Character.toLowerCase(buf[tokenStart + i]) != word.charAt(i)) return false;
+		}
+		return true;
 	}
 	
 	// 可以獲取peek方法對應的token，衹有tag為 STRING 與 CHAR_SEQUENCE 時有意義
 	public String getToken() {
+		if(token == null) {
+			token = escaped ? StringDecoder.decode(buf, tokenStart, tokenEnd) : new String(buf, tokenStart, tokenEnd - tokenStart);
+		}
 		return token;
 	}
 	
-	// 当tag为num时，可以获取num对象，其实例可能为Integer，Float， BigDicimal
+	public boolean matches(String s) {
+		if(token != null || escaped) return getToken().equals(s);
+		if(tokenEnd - tokenStart != s.length()) return false;
+		
+		for(int i = 0; i < s.length(); i++) {
+			if(buf[tokenStart + i] != s.charAt(i)) return false;
+		}
+		return true;
+	}
+	
+	public String getToken(SymbolTable symbols) {
+		if(token == null) {
+			token = escaped ? getToken() : symbols.lookup(buf, tokenStart, tokenEnd); // 符号表按源数据查找，含有转义的名字直接解码
+		}
+		return token;
+	}
+	
+	// 字符串模式下返回源数据上的视图，流模式下缓冲区会被覆盖，只能直接生成String
+	public CharSequence getLazyToken() {
+		if(in != null || token != null) {
+			return getToken();
+		}
+		return new JsonString(buf, tokenStart, tokenEnd);
+	}
+	
+	// 当前token在整个输入中的起止位置（按字符计），字符串不含引号
+	public long getTokenStart() {
+		return offset + tokenStart;
+	}
+	
+	public long getTokenEnd() {
+		return offset + tokenEnd;
+	}
+	
+	// 当tag为num时，可以获取num对象，其实例可能为Integer，Long，Double，BigInteger
 	public Object getNum() {
-		return num;
+		return num.getNum(NUMBER_POLICY.DEFAULT);
+	}
+	
+	public Object getNum(NUMBER_POLICY policy) {
+		return num.getNum(policy);
+	}
+	
+	public boolean isIntegral() {
+		return num.isIntegral();
+	}
+	
+	public boolean isDecimal() {
+		return num.isDecimal();
+	}
+	
+	public long getLong() {
+		return num.getLong();
+	}
+	
+	public double getDouble() {
+		return num.getDouble();
 	}
 	
 	public int getRowCount() {
@@ -195,50 +409,103 @@ public class Tokenizer {
 		return this.colCount;
 	}
 	
-	// 根据tag吃掉当前的token，将指针后移
-	public void swallow(TAG tag) {
-		switch(tag) {
-		case L_BRACE:
-		case R_BRACE:
-		case L_BRACKET:
-		case R_BRACKET:
-		case COLON:
-		case COMMA:
-		case SEMICOLON:
-			pos++;
-			colCount++;
-			break;
-		
-		case STRING:
-			pos = pos + token.length() + 2;				// 2个引号
-			colCount = colCount + token.length() + 2;
-			token = null;
-			break;
-			
-		case NULL:
-		case TRUE:
-		case FALSE:
-		case NUMBER:
-			pos += token.length();
-			colCount += token.length();
-			token = null;
-			break;
+	// 当前token为 { 或 [ 时，只做括号匹配，跳过整个对象或数组，不检查语法也不解析其中的token。
+	// 之后token的起止位置为整个对象或数组（含括号）
+	public void skipContainer() {
+		if(peeked != TAG.L_BRACE && peeked != TAG.L_BRACKET) {
+			throw new IllegalStateException("Not at the start of an object or array!");
+		}
 		
-		default:
-			break;
+		// 边读边移动pos，流模式下补充数据时可以丢弃已经跳过的部分，内存占用不随对象或数组的大小增长
+		long start = offset + pos;	// 在整个输入中的起始位置，offset会随着补充数据变化
+		int level = 0;
+		char quote = 0;			// 当前所在字符串的引号，不在字符串中时为0
+		boolean escape = false;	// 字符串中上一个字符是反斜杠
+		int col = colCount;
+		char[] b = buf;
+		int i = pos;			// 读取位置放在局部变量中，只在补充数据时与pos同步
+		while(true) {
+			if(i >= limit) {
+				pos = i;
+				if(!ensure(0)) break;
+				b = buf;
+				i = pos;
+			}
+			char c = b[i++];
+			col++;
+			
+			if(quote != 0) { // 跳过字符串，其中的括号不计数
+				if(escape) escape = false;
+				else if(c == '\\') escape = true;
+				else if(c == quote) quote = 0;
+				continue;
+			}
+			
+			switch(c) {
+			case '{':
+			case '[':
+				level++;
+				break;
+			case '}':
+			case ']':
+				level--;
+				break;
+			case '\"':
+			case '\'':
+				quote = c;
+				break;
+			case '\n':
+				rowCount++;
+				col = 0;
+				break;
+			case '\r':
+				pos = i;
+				if(!ensure(0) || buf[pos] != '\n') {
+					rowCount++;
+					col = 0;
+				}
+				b = buf;
+				i = pos;
+				break;
+			}
+			
+			if(level == 0) {
+				pos = i;
+				tokenStart = (int) (start - offset);
+				tokenEnd = pos;
+				next = pos;
+				colCount = col;
+				peeked = null;
+				token = null;
+				escaped = false;
+				return;
+			}
 		}
+		
+		throw error("The object or array is not closed at row:");
 	}
-
-	// 打印当前解析的环境
+	
+	// 吃掉当前的token，结束位置在peek时已经记录
+	public void swallow(TAG tag) {
+		if(tag == TAG.EOF || peeked == null) return;
+		
+		colCount += next - pos;
+		pos = next;
+		peeked = null;
+		token = null;
+		escaped = false;
+	}
+	
+	// 打印当前解析的环境，流模式下只能打印缓冲区中还保留的内容
 	public void printEnv(OutputStream out) {
 		try {
-			byte[] bytes = src.getBytes();
-			int len = 20;
+			int from = (pos>20)?pos-20:0;
+			int to = (limit-pos)<20?limit:pos+20;
 			
 			out.write("JSON string may goes error at ==>\r\n ".getBytes());
-			out.write(bytes, (pos>20)?pos-20:0, (pos>20)?20:pos);
+			out.write(new String(buf, from, pos-from).getBytes());
 			out.write('^'); // anchor
-			out.write(bytes, pos, (length-pos-1)<20?(length-pos):20);
+			out.write(new String(buf, pos, to-pos).getBytes());
 			out.flush();
 		} catch (IOException e) { // ignore
 		}
@@ -0,0 +1,185 @@
+package cn.via.test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.Test;
+
+import cn.via.TinyJsonParser;
+
+/**
+ * @author venia
+ */
+public class TestBinder {
+	
+	public static enum STATUS {
+		PAID, SHIPPED
+	}
+	
+	public static class Item {
+		private String sku;
+		private int qty;
+		private BigDecimal price;
+	}
+	
+	public static class Base {
+		protected long id;
+	}
+	
+	public static class Order extends Base {
+		private STATUS status;
+		private boolean vip;
+		private double total;
+		private List<Item> items;
+		private Set<String> tags;
+		private Map<String, Integer> counts;
+		private int[] codes;
+		private Item[] extra;
+		private Object meta;
+		private CharSequence note;
+		private transient String ignored = "keep";
+		private String named;
+		
+		public void setNamed(String named) { // setter优先于字段
+			this.named = "set:" + named;
+		}
+	}
+	
+	public static class Node {
+		public String name;
+		public List<Node> children;
+		public Node parent;
+	}
+	
+	public static class Generic<T> {
+		public List<T> values;
+		public SortedMap<String, ? extends Number> sorted;
+	}
+	
+	private static final String ORDER = "{\"id\":12345678901, \"status\":\"PAID\", \"vip\":true, \"total\":99.5,"
+			+ " \"items\":[{\"sku\":\"a\", \"qty\":2, \"price\":1.10}, {\"sku\":\"b\", \"qty\":1, \"price\":null, \"unknown\":[1, {\"x\":2}]}],"
+			+ " \"tags\":[\"x\", \"y\", \"x\"], \"counts\":{\"a\":1, \"b\":2}, \"codes\":[1, 2, 3], \"extra\":[],"
+			+ " \"meta\":{\"k\":[1, \"v\"]}, \"note\":\"hello\", \"ignored\":\"no\", \"named\":\"n\", \"skipped\":{\"deep\":[[]]}}";
+	
+	@Test
+	public void testBean() {
+		Order o = TinyJsonParser.parse(ORDER, Order.class);
+		assertEquals(12345678901L, o.id);
+		assertEquals(STATUS.PAID, o.status);
+		assertTrue(o.vip);
+		assertEquals(99.5, o.total, 0);
+		assertEquals(2, o.items.size());
+		assertEquals("a", o.items.get(0).sku);
+		assertEquals(2, o.items.get(0).qty);
+		assertEquals(new BigDecimal("1.10"), o.items.get(0).price);
+		assertNull(o.items.get(1).price);
+		assertEquals(2, o.tags.size());
+		assertEquals(Integer.valueOf(2), o.counts.get("b"));
+		assertArrayEquals(new int[] {1, 2, 3}, o.codes);
+		assertEquals(0, o.extra.length);
+		assertEquals(TinyJsonParser.parse("{\"k\":[1, \"v\"]}"), o.meta);
+		assertEquals("hello", o.note.toString());
+		assertEquals("keep", o.ignored);
+		assertEquals("set:n", o.named);
+	}
+	
+	@Test
+	public void testSources() {
+		Order a = TinyJsonParser.parse(ORDER.getBytes(StandardCharsets.UTF_8), Order.class);
+		Order b = TinyJsonParser.parse(new java.io.StringReader(ORDER), Order.class);
+		assertEquals("b", a.items.get(1).sku);
+		assertEquals("b", b.items.get(1).sku);
+	}
+	
+	@Test
+	public void testRootArrayAndRecursion() {
+		Node[] nodes = TinyJsonParser.parse("[{\"name\":\"root\", \"children\":[{\"name\":\"leaf\", \"children\":[]}]}, null]", Node[].class);
+		assertEquals(2, nodes.length);
+		assertEquals("leaf", nodes[0].children.get(0).name);
+		assertNull(nodes[0].parent);
+		assertNull(nodes[1]);
+		
+		List<?> list = TinyJsonParser.parse("[1, \"a\"]", List.class);
+		assertEquals(1, list.get(0));
+	}
+	
+	@Test
+	public void testArrays() {
+		assertArrayEquals(new long[] {1, 0, -3}, TinyJsonParser.parse("[1, null, -3]", long[].class));
+		assertArrayEquals(new double[] {1.5, 2}, TinyJsonParser.parse("[1.5, 2]", double[].class), 0);
+		assertArrayEquals(new float[] {0.5f}, TinyJsonParser.parse("[0.5]", float[].class), 0);
+		assertArrayEquals(new short[] {7}, TinyJsonParser.parse("[7]", short[].class));
+		assertArrayEquals(new byte[] {-1, 2}, TinyJsonParser.parse("[-1, 2]", byte[].class));
+		assertArrayEquals(new char[] {'a', 'b'}, TinyJsonParser.parse("[\"a\", \"b\"]", char[].class));
+		assertTrue(TinyJsonParser.parse("[true, false]", boolean[].class)[0]);
+		assertArrayEquals(new String[] {"x", null}, TinyJsonParser.parse("[\"x\", null]", String[].class));
+		assertArrayEquals(new int[][] {{1}, {}}, TinyJsonParser.parse("[[1], []]", int[][].class));
+		assertEquals(STATUS[].class, TinyJsonParser.parse("[]", STATUS[].class).getClass());
+	}
+	
+	@Test
+	public void testGeneric() {
+		Generic<?> g = TinyJsonParser.parse("{\"values\":[1, {\"a\":true}], \"sorted\":{\"b\":2.5, \"a\":1}}", Generic.class);
+		assertEquals(1, g.values.get(0));
+		assertEquals(TinyJsonParser.parse("{\"a\":true}"), g.values.get(1));
+		assertEquals("a", g.sorted.firstKey());
+		assertEquals(2.5, g.sorted.get("b"));
+	}
+	
+	@Test
+	public void testMismatch() {
+		try {
+			TinyJsonParser.parse("{\"qty\":1.5}", Item.class);
+			fail();
+		} catch (RuntimeException e) {
+			assertEquals("Can not bind VALUE_NUMBER to int at row:1, col:8.", e.getMessage());
+		}
+		try {
+			TinyJsonParser.parse("{\"status\":\"LOST\"}", Order.class);
+			fail();
+		} catch (RuntimeException e) {
+			assertTrue(e.getMessage().startsWith("Can not bind VALUE_STRING to cn.via.test.TestBinder$STATUS"));
+		}
+		try {
+			TinyJsonParser.parse("{\"items\":{}}", Order.class);
+			fail();
+		} catch (RuntimeException e) {
+			assertTrue(e.getMessage().startsWith("Can not bind START_OBJECT to java.util.List"));
+		}
+	}
+	
+	@Test
+	public void testConcurrent() throws Exception {
+		ExecutorService pool = Executors.newFixedThreadPool(4);
+		try {
+			List<Future<Order>> futures = new ArrayList<>();
+			for(int i = 0; i < 32; i++) {
+				futures.add(pool.submit(new Callable<Order>() {
+					public Order call() {
+						return TinyJsonParser.parse(ORDER, Order.class);
+					}
+				}));
+			}
+			for(Future<Order> f : futures) {
+				assertEquals("set:n", f.get().named);
+			}
+		} finally {
+			pool.shutdown();
+		}
+	}
+}
@@ -0,0 +1,110 @@
+package cn.via.test;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+import cn.via.ByteTokenizer;
+import cn.via.Lexer;
+import cn.via.TinyJsonParser;
+import cn.via.Tokenizer;
+import cn.via.Tokenizer.TAG;
+
+/**
+ * @author venia
+ */
+public class TestByteTokenizer {
+	
+	private static final byte[] TEST_BYTES = TestTokenizer.TEST_STR.getBytes(StandardCharsets.UTF_8);
+	
+	@Test
+	public void test() {
+		assertEquals(tokens(new Tokenizer(TestTokenizer.TEST_STR)), tokens(new ByteTokenizer(TEST_BYTES)));
+	}
+	
+	@Test
+	public void testDirectBuffer() {
+		ByteBuffer direct = ByteBuffer.allocateDirect(TEST_BYTES.length);
+		direct.put(TEST_BYTES).flip();
+		
+		assertEquals(tokens(new Tokenizer(TestTokenizer.TEST_STR)), tokens(new ByteTokenizer(direct)));
+		assertEquals(0, direct.position());
+	}
+	
+	@Test
+	public void testParse() {
+		String expect = TinyJsonParser.getPrintString(TinyJsonParser.parse(TestTokenizer.TEST_STR));
+		assertEquals(expect, TinyJsonParser.getPrintString(TinyJsonParser.parse(TEST_BYTES)));
+		assertEquals(expect, TinyJsonParser.getPrintString(TinyJsonParser.parse(ByteBuffer.wrap(TEST_BYTES))));
+		System.out.println(expect);
+	}
+	
+	@Test
+	public void testMappedFile() throws IOException {
+		Path file = Files.createTempFile("tinyjson", ".json");
+		try {
+			Files.write(file, TEST_BYTES);
+			
+			// 窗口很小时，token会跨越多个窗口
+			try (FileChannel channel = FileChannel.open(file)) {
+				assertEquals(tokens(new Tokenizer(TestTokenizer.TEST_STR)), tokens(new ByteTokenizer(channel, 7)));
+			}
+			
+			assertEquals(TinyJsonParser.getPrintString(TinyJsonParser.parse(TestTokenizer.TEST_STR)),
+					TinyJsonParser.getPrintString(TinyJsonParser.parseFile(file)));
+		} finally {
+			Files.delete(file);
+		}
+	}
+	
+	// 小窗口映射文件时跳过跨越很多窗口的数组，位置与行号依然正确
+	@Test
+	public void testSkipMapped() throws IOException {
+		String json = "{\"big\":" + TestStructuralIndex.large() + ",\r\n \"after\":\"]}\\\"\"}";
+		byte[] bytes = json.getBytes(StandardCharsets.UTF_8);
+		Path file = Files.createTempFile("tinyjson", ".json");
+		try {
+			Files.write(file, bytes);
+			try (FileChannel channel = FileChannel.open(file)) {
+				ByteTokenizer tkz = new ByteTokenizer(channel, 64);
+				tkz.swallow(tkz.peek());
+				tkz.swallow(tkz.peek());
+				tkz.swallow(tkz.peek());
+				assertEquals(TAG.L_BRACKET, tkz.peek());
+				tkz.skipContainer();
+				assertEquals(7, tkz.getTokenStart());
+				assertEquals(json.substring(0, json.lastIndexOf("\r\n]") + 3).getBytes(StandardCharsets.UTF_8).length, tkz.getTokenEnd());
+				assertEquals(3002, tkz.getRowCount());
+				
+				tkz.swallow(tkz.peek());
+				assertEquals(TAG.STRING, tkz.peek());
+				assertEquals("after", tkz.getToken());
+				assertEquals(3003, tkz.getRowCount());
+			}
+		} finally {
+			Files.delete(file);
+		}
+	}
+	
+	private static List<String> tokens(Lexer tkz) {
+		List<String> list = new ArrayList<>();
+		TAG t = null;
+		while((t = tkz.peek()) != TAG.EOF) {
+			if(t == TAG.STRING) list.add(tkz.getToken());
+			else if(t == TAG.NUMBER) list.add(String.valueOf(tkz.getNum()));
+			else list.add(t.name());
+			tkz.swallow(t);
+		}
+		return list;
+	}
+
+}
@@ -0,0 +1,92 @@
+package cn.via.test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Map;
+
+import org.junit.Test;
+
+import cn.via.JsonArray;
+import cn.via.JsonObject;
+import cn.via.ParseOptions;
+import cn.via.ParseOptions.TREE_MODEL;
+import cn.via.TinyJsonParser;
+
+/**
+ * @author venia
+ */
+public class TestCompactTree {
+	
+	@Test
+	public void testObject() {
+		JsonObject obj = new JsonObject();
+		for(int i = 0; i < 20; i++) obj.put("k" + i, i);
+		
+		assertEquals(20, obj.size());
+		assertEquals(13, obj.get("k13"));
+		assertNull(obj.get("k20"));
+		assertEquals("k0", obj.getKey(0));
+		
+		obj.put("k5", "five");
+		assertEquals("five", obj.get("k5"));
+		assertEquals(20, obj.size());
+		
+		obj.remove("k0");
+		assertEquals("k1", obj.getKey(0));
+		assertEquals(19, obj.get("k19"));
+		assertFalse(obj.containsKey("k0"));
+		
+		Iterator<Map.Entry<String, Object>> it = obj.entrySet().iterator();
+		while(it.hasNext()) {
+			if(!it.next().getKey().equals("k7")) it.remove();
+		}
+		assertEquals(1, obj.size());
+		assertEquals(7, obj.get("k7"));
+	}
+	
+	@Test
+	public void testArray() {
+		JsonArray longs = new JsonArray();
+		for(int i = 0; i < 20; i++) longs.addLong(i);
+		assertTrue(longs.isLongArray());
+		assertEquals(19, longs.get(19));
+		assertEquals(19L, longs.getLong(19));
+		
+		longs.addDouble(0.5);
+		assertFalse(longs.isLongArray());
+		assertEquals(21, longs.size());
+		assertEquals(0.5, longs.get(20));
+		assertEquals(3, longs.get(3));
+		
+		JsonArray doubles = new JsonArray();
+		doubles.addDouble(1.5);
+		doubles.addDouble(-2);
+		assertTrue(doubles.isDoubleArray());
+		assertArrayEquals(new double[] {1.5, -2}, doubles.toDoubleArray(), 0);
+		assertEquals(Arrays.asList(1.5, -2.0), doubles);
+	}
+	
+	@Test
+	public void testParse() {
+		String json = "{\"name\":\"tiny\", \"ids\":[1, 2, 3000000000], \"scores\":[1.5, 2.25], \"mixed\":[1, \"a\", null, true], \"sub\":{\"x\":-1.0}}";
+		Object compact = TinyJsonParser.parse(json, new ParseOptions().setTreeModel(TREE_MODEL.COMPACT));
+		Object map = TinyJsonParser.parse(json);
+		
+		assertTrue(compact instanceof JsonObject);
+		assertEquals(map, compact);
+		
+		JsonObject root = (JsonObject) compact;
+		JsonArray ids = (JsonArray) root.get("ids");
+		assertTrue(ids.isLongArray());
+		assertArrayEquals(new long[] {1, 2, 3000000000L}, ids.toLongArray());
+		assertTrue(((JsonArray) root.get("scores")).isDoubleArray());
+		assertEquals(Arrays.asList(1, "a", null, true), root.get("mixed"));
+		assertEquals("name", root.getKey(0));
+	}
+}
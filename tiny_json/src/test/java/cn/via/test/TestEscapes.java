@@ -0,0 +1,138 @@
+package cn.via.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.StringReader;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Test;
+
+import cn.via.JsonFeedParser;
+import cn.via.JsonReader;
+import cn.via.JsonString;
+import cn.via.JsonTape;
+import cn.via.JsonWriter;
+import cn.via.ParseOptions;
+import cn.via.SymbolTable;
+import cn.via.TinyJsonParser;
+import cn.via.Tokenizer;
+
+/**
+ * @author venia
+ */
+public class TestEscapes {
+	
+	// 转义前后各有一段超过8个字节的普通字符，覆盖按字长扫描的各个偏移
+	private static final String JSON = "{\"plain\":\"abcdefghijklmnopq中文\", \"quote\":\"say \\\"hi\\\" to\\\\all\\/\","
+			+ " \"ctrl\":\"a\\b\\f\\n\\r\\tz\", \"unicode\":\"\\u4e2D\\u6587 \\u0041\", \"pair\":\"\\uD83D\\uDE00!\", \"emoji\":\"😀\","
+			+ " \"na\\u006De\":1, 'single':'it\\'s', \"end\":\"\\\\\"}";
+	
+	private static void check(Object parsed) {
+		Map<?, ?> m = (Map<?, ?>) parsed;
+		assertEquals("abcdefghijklmnopq中文", m.get("plain").toString());
+		assertEquals("say \"hi\" to\\all/", m.get("quote").toString());
+		assertEquals("a\b\f\n\r\tz", m.get("ctrl").toString());
+		assertEquals("中文 A", m.get("unicode").toString());
+		assertEquals("😀!", m.get("pair").toString());
+		assertEquals(new String(Character.toChars(0x1F600)), m.get("emoji").toString());
+		assertEquals(1, m.get("name"));
+		assertEquals("it's", m.get("single").toString());
+		assertEquals("\\", m.get("end").toString());
+	}
+	
+	@Test
+	public void test() {
+		byte[] bytes = JSON.getBytes(StandardCharsets.UTF_8);
+		check(TinyJsonParser.parse(JSON));
+		check(TinyJsonParser.parse(bytes));
+		check(TinyJsonParser.parse(new StringReader(JSON)));
+		check(TinyJsonParser.parse(new JsonReader(new Tokenizer(new StringReader(JSON), 3)), Object.class)); // 转义跨越缓冲区
+		
+		ByteBuffer direct = ByteBuffer.allocateDirect(bytes.length).order(ByteOrder.LITTLE_ENDIAN);
+		direct.put(bytes).flip();
+		check(TinyJsonParser.parse(direct));
+	}
+	
+	@Test
+	public void testOptions() {
+		ParseOptions options = new ParseOptions().setLazyStrings(true).setSymbolTable(new SymbolTable());
+		check(TinyJsonParser.parse(JSON, options));
+		check(TinyJsonParser.parse(JSON.getBytes(StandardCharsets.UTF_8), options));
+		
+		Map<?, ?> m = (Map<?, ?>) TinyJsonParser.parse(JSON, options);
+		CharSequence quote = (CharSequence) m.get("quote");
+		assertEquals(16, quote.length());
+		assertEquals('"', quote.charAt(4));
+	}
+	
+	@Test
+	public void testTape() {
+		JsonTape tape = TinyJsonParser.parseTape(JSON);
+		assertEquals("say \"hi\" to\\all/", tape.getString(tape.find(0, "quote")));
+		assertEquals(1, tape.getLong(tape.find(0, "name")));
+		
+		tape = TinyJsonParser.parseTape(JSON.getBytes(StandardCharsets.UTF_8));
+		assertEquals("😀!", tape.getString(tape.find(0, "pair")));
+		assertEquals(1, tape.getLong(tape.find(0, "name")));
+		
+		assertEquals("a\"b", new JsonString("a\\\"b".toCharArray(), 0, 4).toString());
+	}
+	
+	@Test
+	public void testRoundTrip() {
+		Object parsed = TinyJsonParser.parse(JSON);
+		assertEquals(parsed, TinyJsonParser.parse(JsonWriter.toJson(parsed)));
+	}
+	
+	// 未转义的控制字符按原样接受，各种输入的结果相同，输出时转义
+	@Test
+	public void testControlChars() {
+		String raw = "a\tb\u0001c\u001fd\re\u0000f";
+		String json = "{\"k\":\"" + raw + "\", \"n\":\"x\ny\"}";
+		byte[] bytes = json.getBytes(StandardCharsets.UTF_8);
+		
+		Map<?, ?> m = (Map<?, ?>) TinyJsonParser.parse(json);
+		assertEquals(raw, m.get("k"));
+		assertEquals("x\ny", m.get("n"));
+		assertEquals(m, TinyJsonParser.parse(bytes));
+		assertEquals(m, TinyJsonParser.parse(new StringReader(json)));
+		assertTrue(TinyJsonParser.validate(json));
+		assertTrue(TinyJsonParser.validate(bytes));
+		
+		JsonFeedParser feed = new JsonFeedParser();
+		for(byte b : bytes) feed.feed(new byte[] {b});
+		assertEquals(m, feed.getResult());
+		
+		String large = "[" + TestStructuralIndex.large() + ", \"" + raw + "\"]"; // 超过64K的byte[]经过结构索引
+		List<?> list = (List<?>) TinyJsonParser.parse(large.getBytes(StandardCharsets.UTF_8));
+		assertEquals(raw, list.get(1));
+		
+		String out = JsonWriter.toJson(m);
+		for(char c : out.toCharArray()) assertTrue(out, c >= 0x20);
+		assertEquals(m, TinyJsonParser.parse(out));
+	}
+	
+	@Test
+	public void testBadEscape() {
+		for (String bad : new String[] {"[\"a\\x\"]", "[\"\\u12G4\"]", "[\"\\u12\"]", "{\"a\\q\":1}"}) {
+			try {
+				TinyJsonParser.parse(bad);
+				fail(bad);
+			} catch (RuntimeException e) {
+				assertTrue(e.getMessage(), e.getMessage().contains(" at row:1"));
+			}
+			try {
+				TinyJsonParser.parse(bad.getBytes(StandardCharsets.UTF_8));
+				fail(bad);
+			} catch (RuntimeException e) {
+				assertTrue(e.getMessage(), e.getMessage().contains(" at row:1"));
+			}
+		}
+	}
+}
@@ -0,0 +1,191 @@
+package cn.via.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.Test;
+
+import cn.via.JsonArray;
+import cn.via.JsonFeedParser;
+import cn.via.JsonFeedParser.STATUS;
+import cn.via.JsonHandler;
+import cn.via.ParseOptions;
+import cn.via.ParseOptions.TREE_MODEL;
+import cn.via.TinyJsonParser;
+
+/**
+ * @author venia
+ */
+public class TestJsonFeedParser {
+	
+	private static final String DOC = "{\"name\":\"中文\\u4e2d\\\"x\", 'single':'a\\\\b',\r\n"
+			+ " \"nums\":[0, -12, 3.25, 1e3, 12345678901234567890, TRUE, false, null],\n"
+			+ " \"nested\":{\"empty\":{}, \"list\":[[], [1, [2, {\"deep\":\"🎉\"}]]]}}";
+	
+	@Test
+	public void testByteByByte() {
+		byte[] data = DOC.getBytes(StandardCharsets.UTF_8);
+		JsonFeedParser parser = new JsonFeedParser();
+		for(int i = 0; i < data.length - 1; i++) {
+			assertEquals(STATUS.NEED_MORE_INPUT, parser.feed(data, i, 1));
+		}
+		assertEquals(STATUS.DONE, parser.feed(data, data.length - 1, 1));
+		assertEquals(TinyJsonParser.parse(DOC), parser.getResult());
+	}
+	
+	// 很长的字符串分成很多小块送入，已经检查过的部分不会重新扫描；转义可能被切断在块的边界上
+	@Test
+	public void testLongString() {
+		StringBuilder sb = new StringBuilder("[\"");
+		StringBuilder value = new StringBuilder();
+		for(int i = 0; i < 20000; i++) {
+			sb.append("abcdefghi中");
+			value.append("abcdefghi中");
+			if(i % 7 == 0) {
+				sb.append("\\u4e2d\\\"");
+				value.append("中\"");
+			}
+		}
+		String json = sb.append("\"]").toString();
+		byte[] data = json.getBytes(StandardCharsets.UTF_8);
+		
+		for(int size : new int[] {1024, 3, 1}) {
+			JsonFeedParser parser = new JsonFeedParser();
+			for(int i = 0; i < data.length - size; i += size) {
+				assertEquals(STATUS.NEED_MORE_INPUT, parser.feed(data, i, size));
+			}
+			int rest = data.length % size == 0 ? size : data.length % size;
+			assertEquals(STATUS.DONE, parser.feed(data, data.length - rest, rest));
+			assertEquals(value.toString(), ((List<?>) parser.getResult()).get(0));
+		}
+		
+		JsonFeedParser parser = new JsonFeedParser();
+		assertEquals(STATUS.NEED_MORE_INPUT, parser.feed("[\"ab\\".getBytes()));
+		try {
+			parser.feed("x\"]".getBytes());
+			fail();
+		} catch (RuntimeException e) {
+			assertTrue(e.getMessage(), e.getMessage().startsWith("Bad escape"));
+		}
+	}
+	
+	@Test
+	public void testRandomChunks() {
+		byte[] data = DOC.getBytes(StandardCharsets.UTF_8);
+		Object expected = TinyJsonParser.parse(DOC);
+		Random random = new Random(7);
+		for(int round = 0; round < 200; round++) {
+			JsonFeedParser parser = new JsonFeedParser();
+			STATUS status = STATUS.NEED_MORE_INPUT;
+			for(int i = 0; i < data.length; ) {
+				int n = Math.min(1 + random.nextInt(16), data.length - i);
+				assertEquals(STATUS.NEED_MORE_INPUT, status);
+				status = parser.feed(ByteBuffer.wrap(data, i, n));
+				i += n;
+			}
+			assertEquals(STATUS.DONE, status);
+			assertEquals(expected, parser.getResult());
+		}
+	}
+	
+	@Test
+	public void testSplitToken() {
+		JsonFeedParser parser = new JsonFeedParser();
+		assertEquals(STATUS.NEED_MORE_INPUT, parser.feed("[12".getBytes()));
+		assertEquals(STATUS.NEED_MORE_INPUT, parser.feed("34, tr".getBytes()));
+		assertEquals(STATUS.NEED_MORE_INPUT, parser.feed("ue, \"ab".getBytes()));
+		assertEquals(1, parser.getDepth());
+		assertEquals(STATUS.DONE, parser.feed("c\"]".getBytes()));
+		
+		List<?> list = (List<?>) parser.getResult();
+		assertEquals(1234, list.get(0));
+		assertEquals(true, list.get(1));
+		assertEquals("abc", list.get(2));
+	}
+	
+	@Test
+	public void testMultipleDocuments() {
+		JsonFeedParser parser = new JsonFeedParser(new ParseOptions().setTreeModel(TREE_MODEL.COMPACT));
+		assertEquals(STATUS.DONE, parser.feed("{\"a\":1}\n[1, 2".getBytes()));
+		assertEquals(1, ((Map<?, ?>) parser.getResult()).get("a"));
+		
+		assertEquals(STATUS.NEED_MORE_INPUT, parser.reset());
+		assertEquals(STATUS.DONE, parser.feed(", 3] [".getBytes()));
+		JsonArray array = (JsonArray) parser.getResult();
+		assertTrue(array.isLongArray());
+		assertEquals(3, array.size());
+		
+		assertEquals(STATUS.NEED_MORE_INPUT, parser.reset());
+		try {
+			parser.end();
+			fail();
+		} catch (RuntimeException e) {
+			assertEquals("The object or array is not closed.", e.getMessage());
+		}
+	}
+	
+	@Test
+	public void testEndOfInput() {
+		JsonFeedParser parser = new JsonFeedParser();
+		assertEquals(STATUS.NEED_MORE_INPUT, parser.feed("  \r".getBytes()));
+		assertEquals(STATUS.DONE, parser.end());
+		assertNull(parser.getResult());
+		
+		try {
+			parser.feed("{}".getBytes());
+			fail();
+		} catch (IllegalStateException e) {
+		}
+	}
+	
+	@Test
+	public void testHandler() {
+		final List<String> events = new ArrayList<>();
+		JsonFeedParser parser = new JsonFeedParser(new JsonHandler() {
+			public void startObject() {
+				events.add("{");
+			}
+			
+			public void endObject() {
+				events.add("}");
+			}
+			
+			public void key(String name) {
+				events.add(name);
+			}
+			
+			public void value(long value) {
+				events.add(String.valueOf(value));
+			}
+		});
+		
+		assertEquals(STATUS.NEED_MORE_INPUT, parser.feed("{\"ke".getBytes()));
+		assertEquals(1, events.size());
+		assertEquals(STATUS.NEED_MORE_INPUT, parser.feed("y\":4".getBytes()));
+		assertEquals(2, events.size());
+		assertEquals(STATUS.DONE, parser.feed("2}".getBytes()));
+		assertEquals("[{, key, 42, }]", events.toString());
+		assertNull(parser.getResult());
+	}
+	
+	@Test
+	public void testBadGrammar() {
+		JsonFeedParser parser = new JsonFeedParser();
+		parser.feed("{\"a\" 1".getBytes());
+		try {
+			parser.feed("}".getBytes());
+			fail();
+		} catch (RuntimeException e) {
+			assertTrue(e.getMessage().startsWith("Expect"));
+		}
+	}
+}
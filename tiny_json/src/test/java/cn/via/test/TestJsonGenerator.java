@@ -0,0 +1,83 @@
+package cn.via.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+
+import org.junit.Test;
+
+import cn.via.JsonGenerator;
+
+/**
+ * @author venia
+ */
+public class TestJsonGenerator {
+	
+	private static void write(JsonGenerator gen) throws IOException {
+		gen.writeStartObject()
+			.writeFieldName("id").writeNumber(42)
+			.writeFieldName("score").writeNumber(0.5)
+			.writeFieldName("name").writeString("杭州\t")
+			.writeFieldName("tags").writeStartArray().writeBoolean(true).writeNull().writeStartObject().writeEndObject().writeEndArray()
+			.writeEndObject();
+	}
+	
+	@Test
+	public void test() throws IOException {
+		StringBuilder sb = new StringBuilder();
+		JsonGenerator gen = new JsonGenerator(sb);
+		write(gen);
+		write(gen);
+		gen.flush();
+		String one = "{\"id\":42,\"score\":0.5,\"name\":\"杭州\\t\",\"tags\":[true,null,{}]}";
+		assertEquals(one + "\n" + one, sb.toString());
+		
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		gen = new JsonGenerator(Channels.newChannel(out));
+		for(int i = 0; i < 1000; i++) write(gen); // 超过缓冲区大小
+		gen.flush();
+		String text = new String(out.toByteArray(), StandardCharsets.UTF_8);
+		assertEquals(1000 * (one.length() + 1) - 1, text.length());
+		assertEquals(one, text.substring(text.length() - one.length()));
+	}
+	
+	@Test
+	public void testPretty() throws IOException {
+		StringBuilder sb = new StringBuilder();
+		JsonGenerator gen = new JsonGenerator(sb).setIndent("  ");
+		gen.writeStartArray().writeNumber(1).writeStartObject().writeFieldName("a").writeStartArray().writeEndArray().writeEndObject().writeEndArray().flush();
+		assertEquals("[\n  1,\n  {\n    \"a\": []\n  }\n]", sb.toString());
+	}
+	
+	@Test
+	public void testIllegalState() throws IOException {
+		JsonGenerator gen = new JsonGenerator(new StringBuilder());
+		gen.writeStartObject();
+		try {
+			gen.writeNumber(1);
+			fail();
+		}
+		catch (IllegalStateException e) {
+			// expected
+		}
+		try {
+			gen.writeEndArray();
+			fail();
+		}
+		catch (IllegalStateException e) {
+			// expected
+		}
+		gen.writeFieldName("a");
+		try {
+			gen.writeEndObject();
+			fail();
+		}
+		catch (IllegalStateException e) {
+			// expected
+		}
+	}
+}
@@ -0,0 +1,116 @@
+package cn.via.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.Test;
+
+import cn.via.JsonArray;
+import cn.via.JsonHandler;
+import cn.via.JsonParser;
+import cn.via.JsonString;
+import cn.via.ParseOptions;
+import cn.via.ParseOptions.TREE_MODEL;
+import cn.via.TinyJsonParser;
+
+/**
+ * @author venia
+ */
+public class TestJsonParser {
+	
+	private static final String[] DOCS = {
+		"{\"id\":1, \"name\":\"first\", \"tags\":[\"a\", \"b\"]}",
+		"[1, 2.5, {\"deep\":[[[]]]}, null, true]",
+		"{\"id\":2, \"name\":\"second, and a much longer name than before\", \"nested\":{\"x\":{\"y\":{\"z\":[]}}}}",
+		"[]",
+	};
+	
+	@Test
+	public void testReuse() {
+		JsonParser parser = new JsonParser();
+		for(int round = 0; round < 3; round++) {
+			for(String doc : DOCS) {
+				assertEquals(TinyJsonParser.parse(doc), parser.parse(doc));
+				assertEquals(TinyJsonParser.parse(doc), parser.parse(doc.getBytes(StandardCharsets.UTF_8)));
+			}
+		}
+	}
+	
+	@Test
+	public void testResultsAreIndependent() {
+		JsonParser parser = new JsonParser();
+		Map<?, ?> first = (Map<?, ?>) parser.parse(DOCS[0]);
+		Map<?, ?> second = (Map<?, ?>) parser.parse(DOCS[2]);
+		assertNotSame(first, second);
+		assertEquals("first", first.get("name"));
+		assertEquals(1, first.get("id"));
+	}
+	
+	@Test
+	public void testAfterError() {
+		JsonParser parser = new JsonParser();
+		try {
+			parser.parse("{\"a\":[1, 2}");
+			fail();
+		} catch (RuntimeException e) {
+		}
+		assertEquals(TinyJsonParser.parse(DOCS[1]), parser.parse(DOCS[1]));
+		
+		try {
+			parser.parse("[{\"a\":1}".getBytes());
+			fail();
+		} catch (RuntimeException e) {
+			assertEquals("The object or array is not closed.", e.getMessage());
+		}
+		assertEquals(TinyJsonParser.parse(DOCS[0]), parser.parse(DOCS[0].getBytes()));
+	}
+	
+	@Test
+	public void testOptions() {
+		JsonParser compact = new JsonParser(new ParseOptions().setTreeModel(TREE_MODEL.COMPACT));
+		JsonArray array = (JsonArray) compact.parse("[1, 2, 3]");
+		assertTrue(array.isLongArray());
+		assertEquals(3, ((List<?>) compact.parse("[[1], [2], [3]]")).size());
+		
+		JsonParser lazy = new JsonParser(new ParseOptions().setLazyStrings(true));
+		List<?> a = (List<?>) lazy.parse("[\"one\"]");
+		List<?> b = (List<?>) lazy.parse("[\"two\"]");
+		assertTrue(a.get(0) instanceof JsonString);
+		assertEquals("one", a.get(0).toString());
+		assertEquals("two", b.get(0).toString());
+	}
+	
+	@Test
+	public void testHandler() {
+		final StringBuilder sb = new StringBuilder();
+		JsonParser parser = new JsonParser();
+		JsonHandler handler = new JsonHandler() {
+			public void key(String name) {
+				sb.append(name).append(';');
+			}
+		};
+		parser.parse(DOCS[0], handler);
+		parser.parse(DOCS[0].getBytes(), handler);
+		assertEquals("id;name;tags;id;name;tags;", sb.toString());
+	}
+	
+	@Test
+	public void testLocal() throws InterruptedException {
+		final JsonParser parser = JsonParser.local();
+		assertSame(parser, JsonParser.local());
+		
+		final AtomicReference<JsonParser> other = new AtomicReference<>();
+		Thread t = new Thread(() -> other.set(JsonParser.local()));
+		t.start();
+		t.join();
+		assertNotSame(parser, other.get());
+	}
+}
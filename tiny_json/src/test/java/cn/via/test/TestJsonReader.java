@@ -0,0 +1,206 @@
+package cn.via.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.OutputStream;
+
+import org.junit.Test;
+
+import cn.via.JsonReader;
+import cn.via.JsonReader.EVENT;
+import cn.via.Lexer;
+import cn.via.ParseOptions;
+import cn.via.ParseOptions.NUMBER_POLICY;
+import cn.via.SymbolTable;
+import cn.via.TinyJsonParser;
+import cn.via.Tokenizer;
+import cn.via.Tokenizer.TAG;
+
+/**
+ * @author venia
+ */
+public class TestJsonReader {
+	
+	@Test
+	public void test() {
+		JsonReader reader = new JsonReader(TestTokenizer.TEST_STR);
+		EVENT e = null;
+		while((e = reader.next()) != EVENT.END_DOCUMENT) {
+			switch(e) {
+			case FIELD_NAME:
+				System.out.println(reader.getDepth() + " " + reader.getString() + ":");
+				break;
+			
+			case VALUE_STRING:
+				System.out.println(reader.getDepth() + " " + reader.getString());
+				break;
+			
+			case VALUE_NUMBER:
+				System.out.println(reader.getDepth() + " " + reader.getNumber());
+				break;
+			
+			default:
+				System.out.println(reader.getDepth() + " " + e);
+				break;
+			}
+		}
+	}
+	
+	@Test
+	public void testSkipChildren() {
+		JsonReader reader = new JsonReader(TestTokenizer.TEST_STR);
+		String url = null;
+		EVENT e = null;
+		while((e = reader.next()) != EVENT.END_DOCUMENT) {
+			if(e == EVENT.FIELD_NAME && "url".equals(reader.getString()) && reader.getDepth() == 1) {
+				reader.next();
+				url = reader.getString();
+			}
+			else if(e == EVENT.START_OBJECT && reader.getDepth() > 1) {
+				reader.skipChildren();
+				assertEquals(EVENT.END_OBJECT, reader.getEvent());
+			}
+			else if(e == EVENT.START_ARRAY) {
+				reader.skipChildren();
+				assertEquals(EVENT.END_ARRAY, reader.getEvent());
+			}
+		}
+		assertEquals("http://www.json.org.cn", url);
+		assertEquals(0, reader.getDepth());
+	}
+	
+	@Test
+	public void testEmpty() {
+		JsonReader reader = new JsonReader("  ");
+		assertEquals(EVENT.END_DOCUMENT, reader.next());
+		assertEquals(EVENT.END_DOCUMENT, reader.next());
+	}
+	
+	@Test(expected = RuntimeException.class)
+	public void testMismatch() {
+		JsonReader reader = new JsonReader("{\"a\": [1, 2}");
+		while(reader.next() != EVENT.END_DOCUMENT);
+	}
+	
+	@Test(expected = RuntimeException.class)
+	public void testNotClosed() {
+		JsonReader reader = new JsonReader("[1, [2]");
+		while(reader.next() != EVENT.END_DOCUMENT);
+	}
+	
+	// 模拟增量输入：只放出available个token，之后peek返回INCOMPLETE，直到放出更多的token
+	private static class Feeding implements Lexer {
+		
+		private final Tokenizer tkz;
+		private int swallowed;
+		int available;
+		
+		Feeding(String src, int available) {
+			this.tkz = new Tokenizer(src);
+			this.available = available;
+		}
+		
+		public TAG peek() {
+			return swallowed < available ? tkz.peek() : TAG.INCOMPLETE;
+		}
+		
+		public void swallow(TAG tag) {
+			swallowed++;
+			tkz.swallow(tag);
+		}
+		
+		public void skipContainer() { tkz.skipContainer(); }
+		public String getToken() { return tkz.getToken(); }
+		public boolean matches(String s) { return tkz.matches(s); }
+		public String getToken(SymbolTable symbols) { return tkz.getToken(symbols); }
+		public CharSequence getLazyToken() { return tkz.getLazyToken(); }
+		public Object getNum() { return tkz.getNum(); }
+		public Object getNum(NUMBER_POLICY policy) { return tkz.getNum(policy); }
+		public boolean isIntegral() { return tkz.isIntegral(); }
+		public boolean isDecimal() { return tkz.isDecimal(); }
+		public long getLong() { return tkz.getLong(); }
+		public double getDouble() { return tkz.getDouble(); }
+		public long getTokenStart() { return tkz.getTokenStart(); }
+		public long getTokenEnd() { return tkz.getTokenEnd(); }
+		public int getRowCount() { return tkz.getRowCount(); }
+		public int getColCount() { return tkz.getColCount(); }
+		public void printEnv(OutputStream out) { tkz.printEnv(out); }
+	}
+	
+	// 跳过的途中数据不足时停下，送入更多数据后再次调用skipChildren继续
+	@Test
+	public void testSkipChildrenFeeding() {
+		Feeding in = new Feeding("{\"a\":{\"b\":[1, {\"c\":2}], \"d\":3}, \"e\":4}", 4); // 放出 { "a" : {
+		JsonReader reader = new JsonReader(in);
+		assertEquals(EVENT.START_OBJECT, reader.next());
+		assertEquals(EVENT.FIELD_NAME, reader.next());
+		assertEquals(EVENT.START_OBJECT, reader.next());
+		
+		in.available += 5; // 再放出 "b":[1, 停在内层的 { 之前
+		reader.skipChildren();
+		assertEquals(EVENT.NEED_MORE_INPUT, reader.getEvent());
+		assertEquals(3, reader.getDepth());
+		reader.skipChildren(); // 没有新的数据，立即返回
+		assertEquals(EVENT.NEED_MORE_INPUT, reader.getEvent());
+		
+		in.available = Integer.MAX_VALUE;
+		reader.skipChildren();
+		assertEquals(EVENT.END_OBJECT, reader.getEvent());
+		assertEquals(1, reader.getDepth());
+		assertEquals(EVENT.FIELD_NAME, reader.next());
+		assertEquals("e", reader.getString());
+		
+		// 直接调用next时放弃中断的跳过
+		in = new Feeding("[[1, 2], 3]", 2);
+		reader = new JsonReader(in);
+		reader.next();
+		reader.next();
+		reader.skipChildren();
+		assertEquals(EVENT.NEED_MORE_INPUT, reader.getEvent());
+		in.available = Integer.MAX_VALUE;
+		assertEquals(EVENT.VALUE_NUMBER, reader.next());
+		reader.skipChildren();
+		assertEquals(EVENT.VALUE_NUMBER, reader.getEvent());
+		
+		try {
+			reader = new JsonReader("[1, [2, [3]");
+			reader.next();
+			reader.skipChildren();
+			fail();
+		} catch (RuntimeException e) {
+			assertEquals("The object or array is not closed.", e.getMessage()); // 由next在输入结束时抛出
+		}
+	}
+	
+	private static String nested(int depth) {
+		StringBuilder sb = new StringBuilder();
+		for(int i = 0; i < depth; i++) sb.append(i % 2 == 0 ? "{\"k\":" : "[");
+		sb.append("1");
+		for(int i = depth - 1; i >= 0; i--) sb.append(i % 2 == 0 ? "}" : "]");
+		return sb.toString();
+	}
+	
+	@Test
+	public void testMaxDepth() {
+		ParseOptions options = new ParseOptions().setMaxDepth(10);
+		assertNotNull(TinyJsonParser.parse(nested(10), options));
+		assertNotNull(TinyJsonParser.parse(nested(ParseOptions.DEFAULT_MAX_DEPTH)));
+		
+		try {
+			TinyJsonParser.parse(nested(11), options);
+			fail();
+		} catch (RuntimeException e) {
+			assertEquals("Exceed the max depth 10 at row:1, col:31.", e.getMessage());
+		}
+		try {
+			TinyJsonParser.parse(nested(ParseOptions.DEFAULT_MAX_DEPTH + 1));
+			fail();
+		} catch (RuntimeException e) {
+			assertTrue(e.getMessage().startsWith("Exceed the max depth"));
+		}
+	}
+
+}
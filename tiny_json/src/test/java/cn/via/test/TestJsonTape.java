@@ -0,0 +1,52 @@
+package cn.via.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.nio.charset.StandardCharsets;
+
+import org.junit.Test;
+
+import cn.via.JsonTape;
+import cn.via.JsonTape.TYPE;
+import cn.via.TinyJsonParser;
+
+/**
+ * @author venia
+ */
+public class TestJsonTape {
+	
+	private static final String JSON = "{\"id\":12, \"tags\":[\"a\", {\"x\":[1, 2]}, 3.5, 12345678901234567890], \"城市\":\"北京\", \"ok\":true, \"none\":null}";
+	
+	@Test
+	public void testNavigate() {
+		check(TinyJsonParser.parseTape(JSON));
+		check(TinyJsonParser.parseTape(JSON.getBytes(StandardCharsets.UTF_8)));
+	}
+	
+	private void check(JsonTape tape) {
+		assertEquals(TYPE.OBJECT, tape.getType(0));
+		assertEquals(5, tape.getSize(0));
+		assertEquals(tape.length() - 1, tape.getMatch(0));
+		
+		assertEquals(12, tape.getLong(tape.find(0, "id")));
+		assertEquals("北京", tape.getString(tape.find(0, "城市")));
+		assertTrue(tape.getBoolean(tape.find(0, "ok")));
+		assertTrue(tape.isNull(tape.find(0, "none")));
+		assertEquals(-1, tape.find(0, "missing"));
+		
+		int tags = tape.find(0, "tags");
+		assertEquals(4, tape.getSize(tags));
+		assertEquals("a", tape.getString(tape.get(tags, 0)));
+		assertEquals(3.5, tape.getDouble(tape.get(tags, 2)), 0);
+		assertEquals("12345678901234567890", tape.getNumber(tape.get(tags, 3)).toString());
+		assertEquals(-1, tape.get(tags, 4));
+		
+		// 跳过整个子对象
+		int sub = tape.get(tags, 1);
+		assertEquals(tape.get(tags, 2), tape.skip(sub));
+		assertEquals(2L, tape.getLong(tape.get(tape.find(sub, "x"), 1)));
+		
+		assertEquals(TinyJsonParser.parse(JSON), tape.toObject(0));
+	}
+}
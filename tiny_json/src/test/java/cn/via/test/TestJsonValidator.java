@@ -0,0 +1,106 @@
+package cn.via.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+
+import org.junit.Test;
+
+import cn.via.JsonValidator;
+import cn.via.ParseOptions;
+import cn.via.TinyJsonParser;
+
+/**
+ * @author venia
+ */
+public class TestJsonValidator {
+	
+	private static final String[] VALID = {
+		TestTokenizer.TEST_STR,
+		"[]", " {} ", "[1, -2.5e10, 123456789012345678901234567890, 1.7976931348623157e309, true, FALSE, null]",
+		"{\"a\\\"\\u4e2d\":{\"b\":[[], {}]}, 'c':'d'}", "\r\n[\"中文\"]\n"
+	};
+	
+	private static final String[] INVALID = {
+		"", "  ", "1", "\"a\"", "{", "[1,", "[1 2]", "{\"a\" 1}", "{\"a\":}", "{1:2}", "[1]]", "[1]x", "[] []", "{} ,",
+		"[01x]", "[tru]", "[\"a]", "[\"\\x\"]", "[\"\\u12\"]", "{\"a\":1,}x"
+	};
+	
+	@Test
+	public void test() {
+		JsonValidator v = new JsonValidator();
+		for (String json : VALID) {
+			assertTrue(json, v.validate(json));
+			assertNull(v.getError());
+			assertTrue(json, v.validate(json.getBytes(StandardCharsets.UTF_8)));
+			assertTrue(json, TinyJsonParser.validate(json));
+		}
+		for (String json : INVALID) {
+			assertFalse(json, v.validate(json));
+			assertMessage(json, v.getError());
+			assertFalse(json, v.validate(json.getBytes(StandardCharsets.UTF_8)));
+			assertFalse(json, TinyJsonParser.validate(json.getBytes(StandardCharsets.UTF_8)));
+		}
+	}
+	
+	// 解析时抛出异常的文档，检查时得到相同的出错信息
+	private static void assertMessage(String json, String error) {
+		PrintStream out = System.out;
+		System.setOut(new PrintStream(new ByteArrayOutputStream()));
+		try {
+			TinyJsonParser.parse(json);
+		} catch (RuntimeException e) {
+			assertEquals(json, e.getMessage(), error);
+		} finally {
+			System.setOut(out);
+		}
+	}
+	
+	// 出错信息与解析时相同，并且不打印出错的环境
+	@Test
+	public void testError() {
+		String json = "{\"a\":1,\n \"b\":[1, 2,\n 3 4]}";
+		String expected = null;
+		try {
+			TinyJsonParser.parse(json);
+		} catch (RuntimeException e) {
+			expected = e.getMessage();
+		}
+		
+		PrintStream out = System.out;
+		ByteArrayOutputStream captured = new ByteArrayOutputStream();
+		System.setOut(new PrintStream(captured));
+		try {
+			JsonValidator v = JsonValidator.local();
+			assertFalse(v.validate(json));
+			assertEquals(expected, v.getError());
+			assertEquals(3, v.getErrorRow());
+			
+			assertFalse(v.validate(json.getBytes(StandardCharsets.UTF_8)));
+			assertEquals(3, v.getErrorRow());
+		} finally {
+			System.setOut(out);
+		}
+		assertEquals(0, captured.size());
+	}
+	
+	@Test
+	public void testDepthAndLarge() {
+		StringBuilder deep = new StringBuilder();
+		for (int i = 0; i < 10; i++) deep.append('[');
+		for (int i = 0; i < 10; i++) deep.append(']');
+		assertTrue(new JsonValidator().validate(deep.toString()));
+		assertFalse(new JsonValidator(new ParseOptions().setMaxDepth(5)).validate(deep.toString()));
+		
+		String large = TestStructuralIndex.large();
+		assertTrue(large.length() > 1 << 16);
+		assertTrue(TinyJsonParser.validate(large));
+		assertTrue(TinyJsonParser.validate(large.getBytes(StandardCharsets.UTF_8)));
+		assertFalse(TinyJsonParser.validate(large.substring(0, large.length() - 1)));
+	}
+}
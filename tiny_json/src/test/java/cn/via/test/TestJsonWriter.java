@@ -0,0 +1,76 @@
+package cn.via.test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.junit.Test;
+
+import cn.via.JsonArray;
+import cn.via.JsonWriter;
+import cn.via.TinyJsonParser;
+
+/**
+ * @author venia
+ */
+public class TestJsonWriter {
+	
+	private static Map<String, Object> sample() {
+		Map<String, Object> map = new LinkedHashMap<>();
+		map.put("name", "引号\"反斜杠\\换行\n\u0001😀");
+		map.put("list", Arrays.asList(1, -2L, 1.5, true, null));
+		map.put("empty", new LinkedHashMap<>());
+		return map;
+	}
+	
+	@Test
+	public void testCompact() {
+		assertEquals("{\"name\":\"引号\\\"反斜杠\\\\换行\\n\\u0001😀\",\"list\":[1,-2,1.5,true,null],\"empty\":{}}", JsonWriter.toJson(sample()));
+		assertEquals("[" + Long.MIN_VALUE + ",0,9]", JsonWriter.toJson(new long[] {Long.MIN_VALUE, 0, 9}));
+		
+		JsonArray doubles = new JsonArray();
+		doubles.addDouble(0.25);
+		doubles.addDouble(-3);
+		assertEquals("[0.25,-3.0]", JsonWriter.toJson(doubles));
+	}
+	
+	@Test
+	public void testPretty() {
+		Map<String, Object> map = new LinkedHashMap<>();
+		map.put("a", Arrays.asList(1, Arrays.asList()));
+		assertEquals("{\n\t\"a\": [\n\t\t1,\n\t\t[]\n\t]\n}", JsonWriter.toJson(map, "\t"));
+	}
+	
+	@Test
+	public void testBytes() throws IOException {
+		StringBuilder sb = new StringBuilder();
+		for(int i = 0; i < 3000; i++) sb.append("汉😀");
+		Object value = Arrays.asList(sb.toString(), sample());
+		byte[] expected = JsonWriter.toJson(value).getBytes(StandardCharsets.UTF_8);
+		
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		new JsonWriter(out).write(value).flush();
+		assertArrayEquals(expected, out.toByteArray());
+		
+		ByteBuffer buffer = ByteBuffer.allocate(expected.length);
+		new JsonWriter(buffer).write(value).flush();
+		assertArrayEquals(expected, buffer.array());
+		
+		assertEquals(TinyJsonParser.parse(new String(expected, StandardCharsets.UTF_8)), TinyJsonParser.parse(expected));
+	}
+	
+	@Test
+	public void testPrintString() {
+		Map<String, Object> map = new LinkedHashMap<>();
+		map.put("a", 1);
+		map.put("b", Arrays.asList("x", new LinkedHashMap<>()));
+		assertEquals("{\r\n\ta:1,\r\n\tb:[\r\n\t\tx,\r\n\t\t{}\r\n\t]\r\n}", TinyJsonParser.getPrintString(map));
+	}
+}
@@ -0,0 +1,81 @@
+package cn.via.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Test;
+
+import cn.via.JsonReader;
+import cn.via.JsonReader.EVENT;
+import cn.via.LazyArray;
+import cn.via.LazyObject;
+import cn.via.ParseOptions;
+import cn.via.ParseOptions.TREE_MODEL;
+import cn.via.TinyJsonParser;
+
+/**
+ * @author venia
+ */
+public class TestLazyTree {
+	
+	private static final String JSON = "{\"id\":1, \"name\":\"a]}\\\"b\",\n \"address\":{\"city\":\"北京\", \"geo\":[1.5, 2.5]},\n \"links\":[{\"url\":\"x\"}, {\"url\":'y}'}]}";
+	
+	@Test
+	public void testLazy() {
+		ParseOptions options = new ParseOptions().setTreeModel(TREE_MODEL.LAZY);
+		Object eager = TinyJsonParser.parse(JSON);
+		check(TinyJsonParser.parse(JSON, options), eager);
+		check(TinyJsonParser.parse(JSON.getBytes(StandardCharsets.UTF_8), options), eager);
+	}
+	
+	@SuppressWarnings("unchecked")
+	private void check(Object lazy, Object eager) {
+		assertTrue(lazy instanceof LazyObject);
+		Map<String, Object> root = (Map<String, Object>) lazy;
+		assertEquals(1, root.get("id"));
+		assertEquals("a]}\"b", root.get("name"));
+		
+		LazyObject address = (LazyObject) root.get("address");
+		LazyArray links = (LazyArray) root.get("links");
+		assertFalse(address.isLoaded());
+		assertEquals("北京", address.get("city"));
+		assertTrue(address.isLoaded());
+		assertFalse(links.isLoaded());
+		
+		assertEquals("y}", ((Map<?, ?>) links.get(1)).get("url"));
+		assertEquals(eager, lazy);
+	}
+	
+	@Test
+	public void testDeferredError() {
+		List<?> root = (List<?>) TinyJsonParser.parse("[1, {\"a\" 2}, 3]", new ParseOptions().setTreeModel(TREE_MODEL.LAZY));
+		assertEquals(3, root.size());
+		try {
+			((Map<?, ?>) root.get(1)).size();
+			fail();
+		}
+		catch (RuntimeException e) {
+			assertTrue(e.getMessage().startsWith("Expected a \":\"")); // 行列号从子树开始计算
+		}
+	}
+	
+	@Test
+	public void testSkipRaw() {
+		JsonReader reader = new JsonReader("{\"a\":{\"b\":[1, \"]\"]}, \"c\":2}");
+		reader.next();
+		reader.next();
+		assertEquals(EVENT.START_OBJECT, reader.next());
+		reader.skipRaw();
+		assertEquals(EVENT.END_OBJECT, reader.getEvent());
+		assertEquals(5, reader.getTokenStart());
+		assertEquals(19, reader.getTokenEnd());
+		assertEquals(EVENT.FIELD_NAME, reader.next());
+		assertEquals("c", reader.getString());
+	}
+}
@@ -0,0 +1,85 @@
+package cn.via.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.Stream;
+
+import org.junit.Test;
+
+import cn.via.NdjsonReader;
+import cn.via.TinyJsonParser;
+
+/**
+ * @author venia
+ */
+public class TestNdjsonReader {
+	
+	private static byte[] lines(int n) {
+		StringBuilder sb = new StringBuilder();
+		for(int i = 0; i < n; i++) {
+			sb.append("{\"id\":").append(i).append(", \"msg\":\"");
+			for(int k = 0; k < i % 300; k++) sb.append('x'); // 有的行比块还长
+			sb.append("\"}").append(i % 7 == 0 ? "\r\n" : "\n");
+			if(i % 100 == 0) sb.append("\n  \n");
+		}
+		return sb.toString().getBytes(StandardCharsets.UTF_8);
+	}
+	
+	@Test
+	public void testOrdered() throws IOException {
+		byte[] data = lines(5000);
+		ExecutorService pool = Executors.newFixedThreadPool(4);
+		try (NdjsonReader reader = new NdjsonReader(new ByteArrayInputStream(data)).setExecutor(pool).setChunkSize(256).setMaxPending(3)) {
+			int i = 0;
+			for(Object o : reader) {
+				assertEquals(i++, ((Map<?, ?>) o).get("id"));
+			}
+			assertEquals(5000, i);
+		}
+		finally {
+			pool.shutdown();
+		}
+	}
+	
+	@Test
+	public void testUnordered() throws IOException {
+		byte[] data = lines(3000);
+		try (Stream<Object> s = new NdjsonReader(new ByteArrayInputStream(data)).setOrdered(false).setChunkSize(1000).stream()) {
+			long sum = s.mapToLong(o -> ((Number) ((Map<?, ?>) o).get("id")).longValue()).sum();
+			assertEquals(2999L * 3000 / 2, sum);
+		}
+	}
+	
+	@Test
+	public void testSingleChunk() throws IOException {
+		String text = "[1, 2]\n{\"a\":\"b\"}";
+		List<Object> records = new ArrayList<>();
+		new NdjsonReader(new ByteArrayInputStream(text.getBytes(StandardCharsets.UTF_8))).forEach(records::add);
+		assertEquals(2, records.size());
+		assertEquals(TinyJsonParser.parse("{\"a\":\"b\"}"), records.get(1));
+	}
+	
+	@Test
+	public void testError() throws IOException {
+		String text = "{\"a\":1}\n\n{\"a\" 2}\n";
+		Iterator<Object> it = new NdjsonReader(new ByteArrayInputStream(text.getBytes(StandardCharsets.UTF_8))).iterator();
+		try {
+			it.next();
+			fail();
+		}
+		catch (RuntimeException e) {
+			assertTrue(e.getMessage(), e.getMessage().startsWith("Bad record at line:3."));
+		}
+	}
+}
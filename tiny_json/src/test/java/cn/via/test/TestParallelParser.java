@@ -0,0 +1,115 @@
+package cn.via.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.Test;
+
+import cn.via.JsonArray;
+import cn.via.ParseOptions;
+import cn.via.ParseOptions.TREE_MODEL;
+import cn.via.TinyJsonParser;
+
+/**
+ * @author venia
+ */
+public class TestParallelParser {
+	
+	private static String doc(int n) {
+		StringBuilder sb = new StringBuilder("[\n");
+		for(int i = 0; i < n; i++) {
+			if(i > 0) sb.append(",\n");
+			switch(i % 4) {
+			case 0:	sb.append("{\"id\":").append(i).append(", \"s\":\"],[{\\\"\", \"城市\":[1, {\"a\":null}]}"); break;
+			case 1:	sb.append(i * 0.5); break;
+			case 2:	sb.append("'str,").append(i).append("'"); break;
+			default: sb.append("[true, false]"); break;
+			}
+		}
+		return sb.append("\n]").toString();
+	}
+	
+	@Test
+	public void test() {
+		String json = doc(10000);
+		Object expected = TinyJsonParser.parse(json);
+		ForkJoinPool pool = new ForkJoinPool(4);
+		try {
+			assertEquals(expected, TinyJsonParser.parseParallel(json, new ParseOptions(), pool));
+			assertEquals(expected, TinyJsonParser.parseParallel(json.getBytes(StandardCharsets.UTF_8), new ParseOptions(), pool));
+			
+			Object compact = TinyJsonParser.parseParallel(json, new ParseOptions().setTreeModel(TREE_MODEL.COMPACT), pool);
+			assertTrue(compact instanceof JsonArray);
+			assertEquals(expected, compact);
+		}
+		finally {
+			pool.shutdown();
+		}
+		
+		assertEquals(new ArrayList<>(), TinyJsonParser.parseParallel(" [ ] "));
+		assertEquals(TinyJsonParser.parse("{\"a\":[1]}"), TinyJsonParser.parseParallel("{\"a\":[1]}"));
+	}
+	
+	@Test
+	public void testErrors() {
+		String[][] cases = {
+			{"[1,,2]", "Expect a string or a number or a object at row:1, col:4."},
+			{"[1, 2] 3", "Bad gramma at row:1, col:8."},
+			{"[1,\n {\"a\" 2}]", "Bad element at row:2, col:2. Expected a \":\" at at row:1, col:5."},
+			{"[1, 2", "The object or array is not closed."},
+			{"[1, tru]", "Bad element at row:1, col:5. Bad gramma at row:1, col:1."},
+		};
+		for(String[] c : cases) {
+			try {
+				TinyJsonParser.parseParallel(c[0]);
+				fail(c[0]);
+			}
+			catch (RuntimeException e) {
+				assertEquals(c[1], e.getMessage());
+			}
+		}
+	}
+	
+	// COMPACT模式下根数组中的数字与嵌套数组一样按long[]/double[]保存
+	@Test
+	public void testCompactNumbers() {
+		ParseOptions options = new ParseOptions().setTreeModel(TREE_MODEL.COMPACT);
+		for(String json : new String[] {"[1, -2, 12345678901]", "[1.5, 2.5e3]", "[1, 2.5, 123456789012345678901234567890]"}) {
+			JsonArray sequential = (JsonArray) TinyJsonParser.parse(json, options);
+			JsonArray parallel = (JsonArray) TinyJsonParser.parseParallel(json, options, ForkJoinPool.commonPool());
+			assertEquals(sequential, parallel);
+			assertEquals(sequential.isLongArray(), parallel.isLongArray());
+			assertEquals(sequential.isDoubleArray(), parallel.isDoubleArray());
+			assertEquals(sequential.getDouble(1), parallel.getDouble(1), 0);
+		}
+		assertTrue(((JsonArray) TinyJsonParser.parseParallel("[1, -2, 12345678901]", options, ForkJoinPool.commonPool())).isLongArray());
+	}
+	
+	// 根数组计入嵌套层数，与顺序解析的限制相同
+	@Test
+	public void testMaxDepth() {
+		ParseOptions options = new ParseOptions().setMaxDepth(3);
+		String ok = "[1, [[2]], {\"a\":[3]}]";
+		String deep = "[1, [[[2]]]]";
+		assertEquals(TinyJsonParser.parse(ok, options), TinyJsonParser.parseParallel(ok, options, ForkJoinPool.commonPool()));
+		for(String json : new String[] {deep, "[{\"a\":{\"b\":{}}}]"}) {
+			try {
+				TinyJsonParser.parse(json, options);
+				fail(json);
+			} catch (RuntimeException e) {
+				assertTrue(e.getMessage(), e.getMessage().startsWith("Exceed the max depth 3"));
+			}
+			try {
+				TinyJsonParser.parseParallel(json, options, ForkJoinPool.commonPool());
+				fail(json);
+			} catch (RuntimeException e) {
+				assertTrue(e.getMessage(), e.getMessage().contains("Exceed the max depth 3"));
+			}
+		}
+	}
+}
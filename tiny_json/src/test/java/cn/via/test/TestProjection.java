@@ -0,0 +1,67 @@
+package cn.via.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+import java.nio.charset.StandardCharsets;
+
+import org.junit.Test;
+
+import cn.via.JsonHandler;
+import cn.via.JsonReader;
+import cn.via.Projection;
+import cn.via.TinyJsonParser;
+
+/**
+ * @author venia
+ */
+public class TestProjection {
+	
+	private static final String JSON = "{\"id\":7, \"name\":\"log\", \"address\":{\"city\":\"杭州\", \"zip\":310000, \"geo\":[1, 2]},"
+			+ " \"links\":[{\"url\":\"a\", \"rel\":\"self\"}, {\"rel\":\"next\"}, {\"url\":{\"href\":\"b\"}}], \"skipped\":{\"x\":[[{}]]}}";
+	
+	@Test
+	public void test() {
+		Projection p = Projection.of("links[*].url", "address.city", "id");
+		Object expected = TinyJsonParser.parse("{\"address\":{\"city\":\"杭州\"}, \"id\":7, \"links\":[{\"url\":\"a\"}, {}, {\"url\":{\"href\":\"b\"}}]}");
+		assertEquals(expected, TinyJsonParser.parse(JSON, p));
+		assertEquals(expected, TinyJsonParser.parse(JSON.getBytes(StandardCharsets.UTF_8), p));
+	}
+	
+	@Test
+	public void testSubtree() {
+		assertEquals(TinyJsonParser.parse("{\"address\":{\"city\":\"杭州\", \"zip\":310000, \"geo\":[1, 2]}}"), TinyJsonParser.parse(JSON, Projection.of("address")));
+		assertEquals("[{id=1}, {id=2}]", TinyJsonParser.parse("[{\"id\":1, \"v\":[1]}, {\"v\":{}, \"id\":2}]", Projection.of("[*].id")).toString());
+		assertEquals("{}", TinyJsonParser.parse(JSON, Projection.of("nothing.here")).toString());
+	}
+	
+	// 路径中间的值为标量时，连同成员名一起丢弃
+	@Test
+	public void testScalarOnPath() {
+		assertEquals("[{}, {a={b=2}}]", TinyJsonParser.parse("[{\"a\":1},{\"a\":{\"b\":2}}]", Projection.of("[*].a.b")).toString());
+		assertEquals("{x={}}", TinyJsonParser.parse("{\"x\":{\"c\":[1]}, \"a\":1}", Projection.of("a.b", "x.d")).toString());
+		
+		final StringBuilder events = new StringBuilder();
+		JsonHandler handler = new JsonHandler() {
+			public void startObject() { events.append('{'); }
+			public void endObject() { events.append('}'); }
+			public void key(String name) { events.append(name).append(':'); }
+			public void value(long value) { events.append(value); }
+		};
+		TinyJsonParser.parse(new JsonReader("{\"c\":{\"b\":3}, \"a\":1}"), handler, Projection.of("a.b", "c.b"));
+		assertEquals("{c:{b:3}}", events.toString());
+	}
+	
+	@Test
+	public void testBadPath() {
+		for (String path : new String[] {"", "a.", ".a", "a..b", "a[0]", "[*]x"}) {
+			try {
+				Projection.of(path);
+				fail(path);
+			}
+			catch (IllegalArgumentException e) {
+				// expected
+			}
+		}
+	}
+}
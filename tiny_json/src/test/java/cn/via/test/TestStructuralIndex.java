@@ -0,0 +1,88 @@
+package cn.via.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Test;
+
+import cn.via.ParseOptions;
+import cn.via.Projection;
+import cn.via.SymbolTable;
+import cn.via.TinyJsonParser;
+
+/**
+ * 超过64K的byte[]输入在Vector API可用时（-Pvector编译，运行时--add-modules jdk.incubator.vector）经过结构索引解析，
+ * 不可用时使用ByteTokenizer，两种情况下结果都应与解析String相同。
+ * @author venia
+ */
+public class TestStructuralIndex {
+	
+	public static class Row {
+		public int id;
+		public String name;
+		public List<Object> tags;
+	}
+	
+	// 转义、引号与结构字符出现在各种偏移上，会落在向量块的边界
+	static String large() {
+		StringBuilder sb = new StringBuilder("[\r\n");
+		for(int i = 0; i < 3000; i++) {
+			if(i > 0) sb.append(",\n");
+			sb.append("{\"id\":").append(i)
+				.append(", \"name\":\"");
+			for(int j = 0; j < i % 7; j++) sb.append('x');
+			sb.append("a\\\"b\\\\\", \"tags\":[true, null, -1.5e3, \"中文{[,:]}\", \"'q'\", \"\\u0041\\\\\"],")
+				.append(" \"nested\":{\"k\":{\"v\":[[], {}]}}, \"empty\":\"\"}");
+		}
+		return sb.append("\r\n]").toString();
+	}
+	
+	@Test
+	public void test() {
+		String json = large();
+		byte[] bytes = json.getBytes(StandardCharsets.UTF_8);
+		assertTrue(bytes.length > 1 << 16);
+		
+		String expect = TinyJsonParser.getPrintString(TinyJsonParser.parse(json));
+		assertEquals(expect, TinyJsonParser.getPrintString(TinyJsonParser.parse(bytes)));
+		assertEquals(expect, TinyJsonParser.getPrintString(TinyJsonParser.parse(bytes,
+				new ParseOptions().setLazyStrings(true).setSymbolTable(new SymbolTable()))));
+	}
+	
+	@Test
+	public void testSkip() {
+		byte[] bytes = large().getBytes(StandardCharsets.UTF_8);
+		
+		List<?> list = (List<?>) TinyJsonParser.parse(bytes, Projection.of("[*].name"));
+		assertEquals(3000, list.size());
+		assertEquals("xxa\"b\\", ((Map<?, ?>) list.get(2)).get("name"));
+		
+		Row[] rows = TinyJsonParser.parse(bytes, Row[].class);
+		assertEquals(2999, rows[2999].id);
+		assertEquals("A\\", rows[5].tags.get(5));
+	}
+	
+	@Test
+	public void testSingleQuote() {
+		String json = large().replace("\"empty\":\"\"", "'empty':'x'");
+		assertEquals(TinyJsonParser.parse(json), TinyJsonParser.parse(json.getBytes(StandardCharsets.UTF_8)));
+	}
+	
+	@Test
+	public void testError() {
+		String json = large();
+		for(String bad : new String[] {json.substring(0, json.length() - 10), json.replace("\"empty\":\"\"}\r\n]", "\"empty\":\"}\r\n]")}) {
+			try {
+				TinyJsonParser.parse(bad.getBytes(StandardCharsets.UTF_8));
+				fail();
+			} catch (RuntimeException e) {
+				assertTrue(e.getMessage(), e.getMessage().contains(" at row:"));
+			}
+		}
+	}
+}
@@ -0,0 +1,75 @@
+package cn.via.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Test;
+
+import cn.via.ParseOptions;
+import cn.via.SymbolTable;
+import cn.via.TinyJsonParser;
+
+/**
+ * @author venia
+ */
+public class TestSymbolTable {
+	
+	@Test
+	public void test() {
+		SymbolTable symbols = new SymbolTable();
+		char[] chars = "nameurlname".toCharArray();
+		
+		String name = symbols.lookup(chars, 0, 4);
+		assertEquals("name", name);
+		assertSame(name, symbols.lookup(chars, 7, 11));
+		assertEquals("url", symbols.lookup(chars, 4, 7));
+		assertEquals(1, symbols.getHits());
+		assertEquals(2, symbols.getMisses());
+		
+		ByteBuffer bytes = ByteBuffer.wrap("城市city城市".getBytes(StandardCharsets.UTF_8));
+		String city = symbols.lookup(bytes, 0, 6);
+		assertEquals("城市", city);
+		assertSame(city, symbols.lookup(bytes, 10, 16));
+		assertEquals(3, symbols.size());
+	}
+	
+	@Test
+	public void testBounded() {
+		SymbolTable symbols = new SymbolTable(2);
+		char[] chars = "abc".toCharArray();
+		for(int i = 0; i < 2; i++) {
+			symbols.lookup(chars, 0, 1);
+			symbols.lookup(chars, 1, 2);
+			symbols.lookup(chars, 2, 3);
+		}
+		assertEquals(2, symbols.size());
+		assertEquals(2, symbols.getHits());
+		assertEquals(4, symbols.getMisses());
+	}
+	
+	@Test
+	public void testParse() {
+		SymbolTable symbols = new SymbolTable();
+		ParseOptions options = new ParseOptions().setSymbolTable(symbols);
+		
+		Map<?, ?> map = (Map<?, ?>) TinyJsonParser.parse(TestTokenizer.TEST_STR, options);
+		List<?> links = (List<?>) map.get("links");
+		Object key1 = ((Map<?, ?>) links.get(0)).keySet().iterator().next();
+		Object key2 = ((Map<?, ?>) links.get(1)).keySet().iterator().next();
+		assertSame(key1, key2);
+		assertEquals(9, symbols.size());
+		assertEquals(6, symbols.getHits());
+		
+		TinyJsonParser.parse(TestTokenizer.TEST_STR.getBytes(StandardCharsets.UTF_8), options);
+		assertEquals(18, symbols.size());
+		TinyJsonParser.parse(TestTokenizer.TEST_STR.getBytes(StandardCharsets.UTF_8), options);
+		assertEquals(18, symbols.size());
+		assertEquals(6 + 6 + 15, symbols.getHits());
+	}
+
+}
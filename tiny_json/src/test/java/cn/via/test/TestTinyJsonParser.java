@@ -1,12 +1,22 @@
 package cn.via.test;
 
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
 import java.io.BufferedReader;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
 
 import org.junit.Test;
 
+import cn.via.JsonHandler;
+import cn.via.JsonString;
+import cn.via.ParseOptions;
 import cn.via.TinyJsonParser;
 
 public class TestTinyJsonParser {
@@ -59,6 +69,64 @@ public class TestTinyJsonParser {
 		System.out.println(TinyJsonParser.getPrintString(parse));
 	}
 	
+	@Test
+	public void testInputStream() throws IOException {
+		try(InputStream in = TestTinyJsonParser.class.getClassLoader().getResourceAsStream("jsonokstr1.txt")) {
+			Object parse = TinyJsonParser.parse(in);
+			assertEquals(TinyJsonParser.getPrintString(TinyJsonParser.parse(readFile("jsonokstr1.txt"))),
+					TinyJsonParser.getPrintString(parse));
+		}
+	}
+	
+	@Test
+	public void testReader() {
+		Object parse = TinyJsonParser.parse(new StringReader(TestTokenizer.TEST_STR));
+		System.out.println(TinyJsonParser.getPrintString(parse));
+	}
+	
+	@Test
+	public void testHandler() {
+		final int[] counts = new int[3]; // 对象个数，成员个数，字符串值个数
+		TinyJsonParser.parse(TestTokenizer.TEST_STR, new JsonHandler() {
+			public void startObject() {
+				counts[0]++;
+			}
+			
+			public void key(String name) {
+				counts[1]++;
+			}
+			
+			public void value(CharSequence value) {
+				counts[2]++;
+			}
+		});
+		assertEquals(5, counts[0]);
+		assertEquals(15, counts[1]);
+		assertEquals(11, counts[2]);
+	}
+	
+	@Test
+	public void testLazyStrings() {
+		ParseOptions options = new ParseOptions().setLazyStrings(true);
+		String expect = TinyJsonParser.getPrintString(TinyJsonParser.parse(TestTokenizer.TEST_STR));
+		
+		Map<?, ?> map = (Map<?, ?>) TinyJsonParser.parse(TestTokenizer.TEST_STR, options);
+		JsonString url = (JsonString) map.get("url");
+		assertFalse(url.isMaterialized());
+		assertEquals(22, url.length());
+		assertEquals(new JsonString("http://www.json.org.cn".toCharArray(), 0, 22), url);
+		assertTrue("http://www.json.org.cn".contentEquals(url));
+		assertEquals(expect, TinyJsonParser.getPrintString(map));
+		
+		byte[] bytes = TestTokenizer.TEST_STR.getBytes(StandardCharsets.UTF_8);
+		map = (Map<?, ?>) TinyJsonParser.parse(bytes, options);
+		JsonString city = (JsonString) ((Map<?, ?>) map.get("address")).get("city");
+		assertFalse(city.isMaterialized());
+		assertEquals("浙江杭州", city.toString());
+		assertTrue(city.isMaterialized());
+		assertEquals(expect, TinyJsonParser.getPrintString(map));
+	}
+	
 	
 	private static final String readFile(String fileName) throws IOException {
 		
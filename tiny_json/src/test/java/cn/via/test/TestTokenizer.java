@@ -1,7 +1,26 @@
 package cn.via.test;
 
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
 import org.junit.Test;
 
+import cn.via.JsonParser;
+import cn.via.JsonString;
+import cn.via.ParseOptions;
+import cn.via.ParseOptions.NUMBER_POLICY;
+import cn.via.TinyJsonParser;
 import cn.via.Tokenizer;
 import cn.via.Tokenizer.TAG;
 
@@ -47,47 +66,47 @@ public class TestTokenizer {
 				case TRUE:
 					System.out.println(tkz.getToken());
 					break;
-					
+				
 				case FALSE:
 					System.out.println(tkz.getToken());
 					break;
-					
+				
 				case NULL:
 					System.out.println("null");
 					break;
-					
+				
 				case NUMBER:
 					System.out.println(tkz.getNum());
-					
-					
+				
+				
 				case COLON:
 					System.out.println(":");
 					break;
-					
+				
 				case COMMA:
 					System.out.println(",");
 					break;
-					
+				
 				case L_BRACE:
 					System.out.println("{");
 					break;
-					
+				
 				case L_BRACKET:
 					System.out.println("[");
 					break;
-					
+				
 				case R_BRACE:
 					System.out.println("}");
 					break;
-					
+				
 				case R_BRACKET:
 					System.out.println("]");
 					break;
-					
+				
 				case SEMICOLON:
 					System.out.println(":");
 					break;
-					
+				
 				case STRING:
 					System.out.println(tkz.getToken());
 					break;
@@ -96,5 +115,127 @@ public class TestTokenizer {
 				tkz.swallow(t);
 			}
 		}
+	
+	
+	@Test
+	public void testReader() {
+		// 缓冲区很小时，token会跨越多次读取，结果应与字符串模式一致
+		assertEquals(tokens(new Tokenizer(TEST_STR)), tokens(new Tokenizer(new StringReader(TEST_STR), 4)));
+		assertEquals(tokens(new Tokenizer(TEST_STR)), tokens(new Tokenizer(new StringReader(TEST_STR), 1)));
+	}
+	
+	// 超过64K的字符串按块读取，不复制整个源串，结果应与byte[]输入一致
+	@Test
+	public void testLargeString() {
+		String large = TestStructuralIndex.large();
+		assertTrue(large.length() > 1 << 16);
+		
+		Object expect = TinyJsonParser.parse(large.getBytes(StandardCharsets.UTF_8));
+		assertEquals(expect, TinyJsonParser.parse(large));
+		assertEquals(expect, new JsonParser().parse(large));
+		
+		// 延迟生成的字符串依然是源数据上的视图
+		ParseOptions lazy = new ParseOptions().setLazyStrings(true);
+		for(Object parsed : new Object[] {TinyJsonParser.parse(large, lazy), new JsonParser(lazy).parse(large)}) {
+			Map<?, ?> first = (Map<?, ?>) ((List<?>) parsed).get(1);
+			assertTrue(first.get("name") instanceof JsonString);
+			assertEquals("xa\"b\\", first.get("name").toString());
+		}
+		assertEquals(tokens(new Tokenizer(new StringReader(large), 4)), tokens(new Tokenizer(large)));
+		
+		Tokenizer tkz = new Tokenizer(large);
+		while(tkz.peek() != TAG.R_BRACKET || tkz.getTokenStart() < large.length() - 1) tkz.swallow(tkz.peek());
+		assertEquals(large.length() - 1, tkz.getTokenStart());
+	}
+	
+	// 跳过对象或数组时边读边丢弃，缓冲区不会扩大到整个对象或数组的大小
+	@Test
+	public void testSkipStream() throws IOException {
+		String json = "{\"big\":" + TestStructuralIndex.large() + ",\r\n \"after\":\"]}\\\"\"}";
+		int[] maxRead = {0};
+		StringReader in = new StringReader(json) {
+			@Override
+			public int read(char[] cbuf, int off, int len) throws IOException {
+				maxRead[0] = Math.max(maxRead[0], len);
+				return super.read(cbuf, off, len);
+			}
+		};
+		
+		Tokenizer tkz = new Tokenizer(in, 64);
+		tkz.swallow(tkz.peek());
+		tkz.swallow(tkz.peek());
+		tkz.swallow(tkz.peek());
+		assertEquals(TAG.L_BRACKET, tkz.peek());
+		tkz.skipContainer();
+		assertTrue(String.valueOf(maxRead[0]), maxRead[0] <= 64);
+		assertEquals(json.indexOf('['), tkz.getTokenStart());
+		assertEquals(json.lastIndexOf("\r\n]") + 3, tkz.getTokenEnd());
+		assertEquals(3002, tkz.getRowCount());
+		
+		assertEquals(TAG.COMMA, tkz.peek());
+		tkz.swallow(TAG.COMMA);
+		assertEquals(TAG.STRING, tkz.peek());
+		assertEquals("after", tkz.getToken());
+		assertEquals(3003, tkz.getRowCount());
+	}
+	
+	private static List<String> tokens(Tokenizer tkz) {
+		List<String> list = new ArrayList<>();
+		TAG t = null;
+		while((t = tkz.peek()) != TAG.EOF) {
+			if(t == TAG.STRING) list.add(tkz.getToken());
+			else if(t == TAG.NUMBER) list.add(String.valueOf(tkz.getNum()));
+			else list.add(t.name());
+			tkz.swallow(t);
+		}
+		return list;
+	}
+	
+	@Test
+	public void testNumbers() {
+		assertEquals(Integer.valueOf(88), number("88"));
+		assertEquals(Integer.valueOf(-7), number("-7"));
+		assertEquals(Long.valueOf(12345678901L), number("12345678901"));
+		assertEquals(Long.valueOf(Long.MIN_VALUE), number("-9223372036854775808"));
+		assertEquals(new BigInteger("92233720368547758070"), number("92233720368547758070"));
+		assertEquals(Double.valueOf(0.1), number("0.1"));
+		assertEquals(Double.valueOf(-12.5e-3), number("-12.5E-3"));
+		assertEquals(Double.valueOf(1.7976931348623157e308), number("1.7976931348623157e308"));
+		assertEquals(Double.valueOf(3.141592653589793238), number("3.141592653589793238"));
+		assertEquals(Double.valueOf(1e23), number("1e23"));
+		
+		Tokenizer tkz = new Tokenizer("[4.5\t,  123]");
+		assertEquals(TAG.L_BRACKET, tkz.peek());
+		tkz.swallow(TAG.L_BRACKET);
+		assertEquals(TAG.NUMBER, tkz.peek());
+		assertEquals(4.5, tkz.getDouble(), 0);
+		assertFalse(tkz.isIntegral());
+		assertEquals(new BigDecimal("4.5"), tkz.getNum(NUMBER_POLICY.BIG_DECIMAL));
+		assertEquals(Float.valueOf(4.5f), tkz.getNum(NUMBER_POLICY.LEGACY));
+		tkz.swallow(TAG.NUMBER);
+		tkz.swallow(tkz.peek());
+		assertEquals(TAG.NUMBER, tkz.peek());
+		assertTrue(tkz.isIntegral());
+		assertEquals(123L, tkz.getLong());
+		assertEquals(Long.valueOf(123), tkz.getNum(NUMBER_POLICY.LONG_DOUBLE));
+	}
+	
+	@Test
+	public void testBadNumbers() {
+		String[] bad = {"1.2.3", "-", "1e", "e5", ".", "12a", "0x10", "--1"};
+		for(String s : bad) {
+			try {
+				number(s);
+				fail(s);
+			} catch(RuntimeException e) { // expected
+			}
+		}
+	}
+	
+	private static Object number(String s) {
+		Tokenizer tkz = new Tokenizer(s);
+		assertEquals(TAG.NUMBER, tkz.peek());
+		return tkz.getNum();
+	}
 
 }